@@ -0,0 +1,54 @@
+package com.example.mcp.server.bench;
+
+import java.util.Map;
+
+import com.example.mcp.server.helper.BlockingToolScheduler;
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.helper.StreamFramer;
+import com.example.mcp.server.helper.ToolInvoker;
+import com.example.mcp.server.tools.ReflectionToolExecutor;
+import com.example.mcp.server.tools.ToolRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Minimal Spring contexts holding only the beans a benchmark exercises, so the suite runs offline.
+ */
+final class BenchContexts {
+    private BenchContexts() {}
+
+    /**
+     * Context with {@link BenchTools} registered through the real registry, invoker and executor.
+     *
+     * @param properties property overrides, e.g. {@code mcp.tools.index.enabled}
+     * @param fillerBeans number of unrelated beans, to make the context look like a real application
+     */
+    static AnnotationConfigApplicationContext toolContext(Map<String, Object> properties, int fillerBeans) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", properties));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(BenchTools.class);
+        for (int i = 0; i < fillerBeans; i++) {
+            context.registerBean("filler" + i, FillerBean.class);
+        }
+        context.register(ToolRegistry.class,
+                         BlockingToolScheduler.class,
+                         McpMetrics.class,
+                         ToolInvoker.class,
+                         ReflectionToolExecutor.class,
+                         StreamFramer.class);
+        context.refresh();
+        return context;
+    }
+
+    /** Stand-in for the many non-tool beans of a Spring Boot application. */
+    public static class FillerBean {
+        public String first() { return "a"; }
+        public String second(String in) { return in; }
+        public int third(int a, int b) { return a + b; }
+        public void fourth() {}
+        public Object fifth(Object o) { return o; }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.mcp.server.bench;
+
+import org.springframework.ai.tool.annotation.Tool;
+import reactor.core.publisher.Flux;
+
+/**
+ * Offline stand-ins for the real tools: same signatures shape, no upstream calls.
+ */
+public class BenchTools {
+
+    @Tool(name = "echo", description = "Echo the text back")
+    public Flux<String> echo(String text) {
+        return Flux.just(text);
+    }
+
+    @Tool(name = "book", description = "Pretend to book an event")
+    public String book(String title, String startIsoUtc, int durationMin) {
+        return title + " at " + startIsoUtc + " for " + durationMin + " min";
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.mcp.server.bench;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.service.ChatCompletionDecoder;
+import com.example.mcp.server.service.LlmResponseParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+/**
+ * Response body to routing decision: the incremental {@link ChatCompletionDecoder} against decoding
+ * the whole envelope into a {@code Map} first, as {@code bodyToMono(Map.class)} did. The body is fed
+ * in 8 KiB buffers like a network read would deliver it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnvelopeDecodeBenchmark {
+    private static final int CHUNK = 8 * 1024;
+
+    @Param({"small", "large"})
+    public String fixture;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final LlmResponseParser parser = new LlmResponseParser(new McpMetrics(new SimpleMeterRegistry()));
+    private final ChatCompletionDecoder decoder = new ChatCompletionDecoder();
+    private byte[] body;
+
+    @Setup
+    public void load() throws IOException {
+        body = LlmResponseParserBenchmark.Fixtures.bytes(fixture);
+    }
+
+    @Benchmark
+    public ToolDecision mapTree() throws IOException {
+        Map<String, Object> envelope = mapper.readValue(body, new TypeReference<>() {});
+        return parser.parse(envelope).block();
+    }
+
+    @Benchmark
+    public ToolDecision incrementalDecoder() {
+        return decoder.decode(chunks()).flatMap(parser::parse).block();
+    }
+
+    private Flux<DataBuffer> chunks() {
+        List<DataBuffer> buffers = new ArrayList<>(body.length / CHUNK + 1);
+        for (int offset = 0; offset < body.length; offset += CHUNK) {
+            ByteBuffer slice = ByteBuffer.wrap(body, offset, Math.min(CHUNK, body.length - offset)).slice();
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(slice));
+        }
+        return Flux.fromIterable(buffers);
+    }
+}
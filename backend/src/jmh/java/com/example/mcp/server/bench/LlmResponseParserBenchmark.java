@@ -0,0 +1,78 @@
+package com.example.mcp.server.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.service.LlmResponseParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LlmResponseParser#parse} on canned OpenRouter chat-completion payloads, against the previous
+ * regex-based implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LlmResponseParserBenchmark {
+
+    @Param({"small", "large", "noisy-prefix", "array"})
+    public String fixture;
+
+    private final LlmResponseParser parser = new LlmResponseParser(new McpMetrics(new SimpleMeterRegistry()));
+    private final LegacyLlmResponseParser legacyParser = new LegacyLlmResponseParser();
+    private Map<String, Object> response;
+
+    @Setup
+    public void load() throws IOException {
+        response = Fixtures.completion(fixture);
+    }
+
+    @Benchmark
+    public ToolDecision parse() {
+        return parser.parse(response).block();
+    }
+
+    @Benchmark
+    public ToolDecision parseLegacyRegex() {
+        return legacyParser.parse(response).block();
+    }
+
+    static final class Fixtures {
+        private static final ObjectMapper MAPPER = new ObjectMapper();
+
+        private Fixtures() {}
+
+        static byte[] bytes(String fixture) throws IOException {
+            try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/openrouter-" + fixture + ".json")) {
+                if (in == null) {
+                    throw new IOException("Missing fixture " + fixture);
+                }
+                return in.readAllBytes();
+            }
+        }
+
+        static Map<String, Object> completion(String fixture) throws IOException {
+            return MAPPER.readValue(bytes(fixture), new TypeReference<>() {});
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.mcp.server.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.example.mcp.server.helper.StreamFramer;
+import com.example.mcp.server.model.FramingMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import reactor.core.publisher.Flux;
+
+/**
+ * Building the output stream of a tool answer: the per-character {@code Flux} the tools used to emit
+ * (without its delay) against the {@link StreamFramer} stages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamOutputBenchmark {
+
+    @Param({"80", "2000"})
+    public int answerLength;
+
+    private AnnotationConfigApplicationContext context;
+    private StreamFramer framer;
+    private String answer;
+
+    @Setup
+    public void start() {
+        context = BenchContexts.toolContext(Map.of(), 0);
+        framer = context.getBean(StreamFramer.class);
+        answer = "The current temperature in London is 12.3 °C. Further forecast: light rain. ".repeat(answerLength / 75 + 1)
+                                                                                                   .substring(0, answerLength);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long perCharacter() {
+        return Flux.fromStream(answer.chars().mapToObj(c -> String.valueOf((char) c))).count().block();
+    }
+
+    @Benchmark
+    public Long framedTypewriter() {
+        return framer.frame(Flux.just(answer), FramingMode.TYPEWRITER).count().block();
+    }
+
+    @Benchmark
+    public Long framedRaw() {
+        return framer.frame(Flux.just(answer), FramingMode.RAW).count().block();
+    }
+}
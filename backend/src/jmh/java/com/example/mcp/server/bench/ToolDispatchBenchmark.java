@@ -0,0 +1,84 @@
+package com.example.mcp.server.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.example.mcp.server.helper.ToolInvoker;
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolMethod;
+import com.example.mcp.server.tools.ReflectionToolExecutor;
+import com.example.mcp.server.tools.ToolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Argument binding and dispatch through {@link ToolInvoker} and {@link ReflectionToolExecutor}, plus
+ * the {@link ToolRegistry#getTool} lookup they start with. Tools answer from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToolDispatchBenchmark {
+    private static final Map<String, Object> ECHO_ARGS = Map.of("text", "hello");
+    // JSON routers send numbers as strings about as often as numbers, so both are covered
+    private static final Map<String, Object> BOOK_ARGS =
+            Map.of("title", "Lunch", "startIsoUtc", "2025-10-19T12:00:00Z", "durationMin", "60");
+    private static final Map<String, Object> BOOK_ARGS_NUMERIC =
+            Map.of("title", "Lunch", "startIsoUtc", "2025-10-19T12:00:00Z", "durationMin", 60);
+
+    private AnnotationConfigApplicationContext context;
+    private ToolRegistry registry;
+    private ToolInvoker invoker;
+    private ReflectionToolExecutor executor;
+
+    @Setup
+    public void start() {
+        context = BenchContexts.toolContext(Map.of(), 0);
+        registry = context.getBean(ToolRegistry.class);
+        invoker = context.getBean(ToolInvoker.class);
+        executor = context.getBean(ReflectionToolExecutor.class);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public ToolMethod registryLookup() {
+        return registry.getTool("book");
+    }
+
+    @Benchmark
+    public String invokeFluxTool() {
+        return invoker.invokeTool("echo", ECHO_ARGS).blockLast();
+    }
+
+    @Benchmark
+    public String invokeStringToolWithCoercion() {
+        return invoker.invokeTool("book", BOOK_ARGS).blockLast();
+    }
+
+    @Benchmark
+    public String invokeStringToolWithNumber() {
+        return invoker.invokeTool("book", BOOK_ARGS_NUMERIC).blockLast();
+    }
+
+    @Benchmark
+    public String executorDispatch() {
+        return executor.execute(new ToolDecision("book", BOOK_ARGS)).blockLast();
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.mcp.server.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.example.mcp.server.tools.ToolRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Tool registration cost with the compile-time index versus the full bean scan, in a context padded
+ * with unrelated beans. The benchmark index lives in {@code src/jmh/resources/META-INF/mcp}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToolRegistryStartupBenchmark {
+
+    @Param({"true", "false"})
+    public String indexEnabled;
+
+    @Param({"50", "500"})
+    public int fillerBeans;
+
+    private AnnotationConfigApplicationContext context;
+
+    @Setup
+    public void start() {
+        context = BenchContexts.toolContext(Map.<String, Object>of("mcp.tools.index.enabled", indexEnabled), fillerBeans);
+    }
+
+    @TearDown
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int register() {
+        ToolRegistry registry = context.getAutowireCapableBeanFactory().createBean(ToolRegistry.class);
+        registry.afterSingletonsInstantiated();
+        return registry.getTools().size();
+    }
+}
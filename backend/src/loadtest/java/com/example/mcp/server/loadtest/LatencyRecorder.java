@@ -0,0 +1,125 @@
+package com.example.mcp.server.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-scenario outcomes and latencies of the measured requests. Latencies are kept as raw samples
+ * (nanoseconds) so percentiles are exact; only successful requests contribute to them.
+ */
+final class LatencyRecorder {
+    enum Outcome {
+        /** the stream completed with an answer */
+        OK,
+        /** refused by admission control with 429 or 503 */
+        SHED,
+        /** any other HTTP or transport failure, or a stream carrying one of the server's error texts */
+        ERROR,
+        /** no end of stream within {@code request-timeout} */
+        TIMEOUT,
+        /** not sent: the open-loop driver already had {@code max-in-flight} requests outstanding */
+        DROPPED
+    }
+
+    private final Map<String, Samples> scenarios = new ConcurrentHashMap<>();
+
+    /**
+     * @param firstChunkNanos time to the first output event, negative if none arrived
+     */
+    void record(String scenario, Outcome outcome, long firstChunkNanos, long totalNanos) {
+        scenarios.computeIfAbsent(scenario, key -> new Samples()).add(outcome, firstChunkNanos, totalNanos);
+    }
+
+    /** Snapshot per scenario, plus {@code all} over every scenario. */
+    Map<String, Samples> snapshot() {
+        Map<String, Samples> snapshot = new TreeMap<>();
+        Samples all = new Samples();
+        scenarios.forEach((scenario, samples) -> {
+            Samples copy = samples.copy();
+            snapshot.put(scenario, copy);
+            all.addAll(copy);
+        });
+        snapshot.put("all", all);
+        return snapshot;
+    }
+
+    static final class Samples {
+        private final long[] outcomes = new long[Outcome.values().length];
+        private long[] firstChunk = new long[1024];
+        private int firstChunkCount;
+        private long[] total = new long[1024];
+        private int totalCount;
+
+        synchronized void add(Outcome outcome, long firstChunkNanos, long totalNanos) {
+            outcomes[outcome.ordinal()]++;
+            if (outcome != Outcome.OK) return;
+            if (firstChunkNanos >= 0) {
+                if (firstChunkCount == firstChunk.length) firstChunk = Arrays.copyOf(firstChunk, firstChunk.length * 2);
+                firstChunk[firstChunkCount++] = firstChunkNanos;
+            }
+            if (totalCount == total.length) total = Arrays.copyOf(total, total.length * 2);
+            total[totalCount++] = totalNanos;
+        }
+
+        synchronized Samples copy() {
+            Samples copy = new Samples();
+            copy.addAll(this);
+            return copy;
+        }
+
+        private void addAll(Samples other) {
+            for (int i = 0; i < outcomes.length; i++) outcomes[i] += other.outcomes[i];
+            firstChunk = append(firstChunk, firstChunkCount, other.firstChunk, other.firstChunkCount);
+            firstChunkCount += other.firstChunkCount;
+            total = append(total, totalCount, other.total, other.totalCount);
+            totalCount += other.totalCount;
+        }
+
+        long count(Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        /** Requests sent, i.e. everything but {@link Outcome#DROPPED}. */
+        long sent() {
+            return Arrays.stream(outcomes).sum() - count(Outcome.DROPPED);
+        }
+
+        Map<String, Double> firstChunkMillis() {
+            return percentiles(firstChunk, firstChunkCount);
+        }
+
+        Map<String, Double> totalMillis() {
+            return percentiles(total, totalCount);
+        }
+
+        private static long[] append(long[] into, int used, long[] from, int count) {
+            long[] result = used + count <= into.length ? into : Arrays.copyOf(into, used + count);
+            System.arraycopy(from, 0, result, used, count);
+            return result;
+        }
+
+        private static Map<String, Double> percentiles(long[] samples, int count) {
+            Map<String, Double> result = new LinkedHashMap<>();
+            if (count == 0) return result;
+
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            result.put("mean", Arrays.stream(sorted).average().orElse(0) / 1e6);
+            result.put("p50", at(sorted, 0.50));
+            result.put("p90", at(sorted, 0.90));
+            result.put("p99", at(sorted, 0.99));
+            result.put("p99.9", at(sorted, 0.999));
+            result.put("max", sorted[count - 1] / 1e6);
+            return result;
+        }
+
+        /** Nearest-rank percentile, in milliseconds. */
+        private static double at(long[] sorted, double quantile) {
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.mcp.server.loadtest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import com.example.mcp.server.loadtest.LatencyRecorder.Outcome;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Sends {@link Workload} prompts to {@code POST /mcp} and reads the SSE answer to its end, timing the
+ * first event and the whole stream.
+ * <ul>
+ *   <li>closed loop: {@code users} virtual users, each sending its next prompt {@code think-time} after
+ *       the previous answer ended; throughput follows the server's latency</li>
+ *   <li>open loop: prompts arrive at {@code rate} per second whatever the server does (evenly spaced,
+ *       or exponential gaps with {@code arrivals=poisson}); latency counts from the scheduled arrival,
+ *       so a stalled server is not hidden by the driver waiting on it</li>
+ * </ul>
+ * Answers are requested unframed ({@code mode=raw}) and reassembled; a stream counts as an error when
+ * the answer, or any section of a plan, is one of the server's error texts, since those arrive with
+ * status 200. Virtual users are spread over {@code clients} X-Client-Id values so per-client admission limits apply
+ * as they would with real callers.
+ */
+final class LoadDriver implements AutoCloseable {
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE = new ParameterizedTypeReference<>() {};
+    /**
+     * The server answers failures with 200 and one of these texts as the body of the answer or of a plan
+     * section. Router failures arrive as a direct answer, so also prefixed with {@code "Answer: "}.
+     */
+    private static final List<String> ERROR_TEXTS = List.of(
+            "LLM error: ", "LLM returned an error: ", "LLM could not decide tool: ", "Weather error: ",
+            "Calendar error: ", "Chat error: ", "Error invoking tool", "Tool not found: ", "Missing argument '",
+            "Could not map arguments for tool: ");
+    private static final String DIRECT_ANSWER = "Answer: ";
+    /** Header PlanExecutor writes before each step's output. */
+    private static final Pattern SECTION_HEADER = Pattern.compile("(?m)^### [^\\n]*\\n");
+
+    private final Workload workload;
+    private final LatencyRecorder recorder;
+    private final ConnectionProvider connections;
+    private final WebClient webClient;
+    private final Duration requestTimeout;
+    private final int clients;
+    private final AtomicLong sequence = new AtomicLong();
+
+    LoadDriver(String target, Workload workload, LatencyRecorder recorder, LoadTestSettings settings) {
+        this.workload = workload;
+        this.recorder = recorder;
+        this.requestTimeout = settings.duration("request-timeout", Duration.ofSeconds(60));
+        this.clients = settings.integer("clients", 50);
+        this.connections = ConnectionProvider.builder("loadtest")
+                                             .maxConnections(settings.integer("max-connections", 2000))
+                                             .pendingAcquireMaxCount(-1)
+                                             .build();
+        this.webClient = WebClient.builder()
+                                  .baseUrl(target)
+                                  .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                                  .build();
+    }
+
+    /**
+     * Run {@code users} request loops until {@code endNanos}; requests started before
+     * {@code measureFromNanos} are not recorded. Users start spread over the warm-up.
+     */
+    void runClosedLoop(int users, Duration thinkTime, long measureFromNanos, long endNanos) {
+        long rampNanos = Math.max(0, measureFromNanos - System.nanoTime());
+        Mono<Void> think = thinkTime.isZero() ? Mono.empty() : Mono.delay(thinkTime).then();
+
+        Flux.range(0, users)
+            .flatMap(user -> Mono.delay(Duration.ofNanos(rampNanos * user / users))
+                                 .then(Mono.defer(() -> send(System.nanoTime(), measureFromNanos, clientId(user)))
+                                           .then(think)
+                                           .repeat(() -> System.nanoTime() < endNanos)
+                                           .then()),
+                     users)
+            .blockLast();
+    }
+
+    /**
+     * Schedule arrivals at {@code rate} per second until {@code endNanos}, then wait up to
+     * {@code request-timeout} for the outstanding answers.
+     */
+    void runOpenLoop(double rate, boolean poisson, int maxInFlight, long measureFromNanos, long endNanos) {
+        AtomicInteger inFlight = new AtomicInteger();
+        double meanGapNanos = 1e9 / rate;
+        long next = System.nanoTime();
+        while (true) {
+            double gap = poisson ? -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos : meanGapNanos;
+            next += (long) gap;
+            if (next >= endNanos) break;
+            long wait;
+            while ((wait = next - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            long scheduled = next;
+            if (inFlight.get() >= maxInFlight) {
+                if (scheduled >= measureFromNanos) recorder.record(workload.next().scenario(), Outcome.DROPPED, -1, 0);
+                continue;
+            }
+            inFlight.incrementAndGet();
+            send(scheduled, measureFromNanos, clientId(sequence.incrementAndGet()))
+                    .doFinally(signal -> inFlight.decrementAndGet())
+                    .subscribe();
+        }
+
+        long deadline = System.nanoTime() + requestTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(Duration.ofMillis(50).toNanos());
+        }
+    }
+
+    @Override
+    public void close() {
+        connections.dispose();
+    }
+
+    /**
+     * One prompt, timed from {@code startNanos}. Never fails: the outcome is recorded instead.
+     */
+    private Mono<Void> send(long startNanos, long measureFromNanos, String clientId) {
+        Workload.Prompt prompt = workload.next();
+        boolean measured = startNanos >= measureFromNanos;
+        AtomicLong firstChunk = new AtomicLong(-1);
+        StringBuilder answer = new StringBuilder();
+
+        return webClient.post()
+                        .uri("/mcp")
+                        .header("X-Client-Id", clientId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .bodyValue(Map.of("prompt", prompt.text(), "mode", "raw"))
+                        .retrieve()
+                        .bodyToFlux(SSE_TYPE)
+                        .doOnNext(event -> {
+                            firstChunk.compareAndSet(-1, System.nanoTime() - startNanos);
+                            if (event.data() != null) answer.append(event.data());
+                        })
+                        .then()
+                        .timeout(requestTimeout)
+                        .then(Mono.fromRunnable(() -> {
+                            if (measured) recorder.record(prompt.scenario(), isError(answer) ? Outcome.ERROR : Outcome.OK,
+                                                          firstChunk.get(), System.nanoTime() - startNanos);
+                        }))
+                        .onErrorResume(ex -> {
+                            if (measured) recorder.record(prompt.scenario(), outcomeOf(ex), -1, System.nanoTime() - startNanos);
+                            return Mono.empty();
+                        })
+                        .then();
+    }
+
+    private String clientId(long n) {
+        return "loadtest-" + n % clients;
+    }
+
+    /** Whether the whole answer, or the body of any plan section in it, is an error text. */
+    private static boolean isError(CharSequence answer) {
+        for (String body : SECTION_HEADER.split(answer)) {
+            String text = body.strip();
+            if (text.startsWith(DIRECT_ANSWER)) text = text.substring(DIRECT_ANSWER.length());
+            for (String prefix : ERROR_TEXTS) {
+                if (text.startsWith(prefix)) return true;
+            }
+        }
+        return false;
+    }
+
+    private static Outcome outcomeOf(Throwable ex) {
+        if (ex instanceof TimeoutException) return Outcome.TIMEOUT;
+        if (ex instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            if (status == 429 || status == 503) return Outcome.SHED;
+        }
+        return Outcome.ERROR;
+    }
+}
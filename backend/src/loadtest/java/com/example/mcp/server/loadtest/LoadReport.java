@@ -0,0 +1,97 @@
+package com.example.mcp.server.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.example.mcp.server.loadtest.LatencyRecorder.Outcome;
+import com.example.mcp.server.loadtest.LatencyRecorder.Samples;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Results of one run: per-scenario throughput, time to first chunk and end-to-end latency
+ * percentiles, JVM resource usage, stub call counts and the server's own meters. Printed as a table
+ * and written as JSON for comparing runs.
+ */
+final class LoadReport {
+    private final String description;
+    private final Map<String, Samples> scenarios;
+    private final Duration measured;
+    private final Map<String, Object> resources;
+    private final Map<String, Long> stubCalls;
+    private final Map<String, Double> serverMeters;
+
+    LoadReport(String description,
+               Map<String, Samples> scenarios,
+               Duration measured,
+               Map<String, Object> resources,
+               Map<String, Long> stubCalls,
+               Map<String, Double> serverMeters) {
+        this.description = description;
+        this.scenarios = scenarios;
+        this.measured = measured;
+        this.resources = resources;
+        this.stubCalls = stubCalls;
+        this.serverMeters = serverMeters;
+    }
+
+    void print(PrintStream out) {
+        out.println();
+        out.println(description);
+        out.printf("%-9s %8s %8s %6s %6s %7s %7s %9s   %-30s   %-30s%n", "scenario", "sent", "ok", "shed", "error",
+                   "timeout", "dropped", "ok/s", "first chunk p50/p90/p99/max ms", "end-to-end p50/p90/p99/max ms");
+        scenarios.forEach((scenario, samples) -> out.printf(
+                "%-9s %8d %8d %6d %6d %7d %7d %9.1f   %-30s   %-30s%n",
+                scenario, samples.sent(), samples.count(Outcome.OK), samples.count(Outcome.SHED),
+                samples.count(Outcome.ERROR), samples.count(Outcome.TIMEOUT), samples.count(Outcome.DROPPED),
+                samples.count(Outcome.OK) / seconds(), summary(samples.firstChunkMillis()), summary(samples.totalMillis())));
+        out.println();
+        out.println("Resources (this JVM): " + resources);
+        if (!stubCalls.isEmpty()) {
+            out.println("Stub calls (api status): " + stubCalls);
+        }
+        if (!serverMeters.isEmpty()) {
+            out.println("Server meters (including warm-up):");
+            serverMeters.forEach((meter, count) -> out.printf("  %-70s %12.0f%n", meter, count));
+        }
+    }
+
+    void write(Path path, Map<String, String> settings) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("description", description);
+        json.put("settings", settings);
+        json.put("measuredSeconds", seconds());
+        Map<String, Object> results = new LinkedHashMap<>();
+        scenarios.forEach((scenario, samples) -> {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("sent", samples.sent());
+            for (Outcome outcome : Outcome.values()) {
+                result.put(outcome.name().toLowerCase(), samples.count(outcome));
+            }
+            result.put("okPerSecond", samples.count(Outcome.OK) / seconds());
+            result.put("firstChunkMs", samples.firstChunkMillis());
+            result.put("endToEndMs", samples.totalMillis());
+            results.put(scenario, result);
+        });
+        json.put("scenarios", results);
+        json.put("resources", resources);
+        json.put("stubCalls", stubCalls);
+        json.put("serverMeters", serverMeters);
+
+        if (path.getParent() != null) Files.createDirectories(path.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), json);
+    }
+
+    private double seconds() {
+        return Math.max(1, measured.toMillis()) / 1000.0;
+    }
+
+    private static String summary(Map<String, Double> millis) {
+        if (millis.isEmpty()) return "-";
+        return String.format("%.0f/%.0f/%.0f/%.0f", millis.get("p50"), millis.get("p90"), millis.get("p99"), millis.get("max"));
+    }
+}
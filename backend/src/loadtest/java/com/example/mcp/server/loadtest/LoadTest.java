@@ -0,0 +1,198 @@
+package com.example.mcp.server.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.example.mcp.server.McpServerApplication;
+import com.google.api.client.auth.oauth2.StoredCredential;
+import com.google.api.client.util.store.FileDataStoreFactory;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Statistic;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Offline end-to-end load test of {@code POST /mcp}: starts the {@link StubUpstreams}, starts the
+ * server in this JVM wired to them (or drives an already running one with {@code target=}), runs the
+ * {@link LoadDriver} and prints a {@link LoadReport}. Nothing leaves the loopback interface.
+ * With {@code mode=stubs} only the stubs run, for a server started separately and then driven with
+ * {@code target=}.
+ * <pre>
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="mode=open rate=200 duration=2m"
+ * </pre>
+ */
+public final class LoadTest {
+    /** The user id CalendarClientManager stores its credential under. */
+    private static final String CALENDAR_USER = "user";
+
+    /** Server meters copied into the report, summed per tag combination. */
+    private static final List<String> SERVER_METERS = List.of(
+            "mcp.request.duration", "mcp.admission.shed", "mcp.routing.attempts", "mcp.routing.cache.requests",
+            "mcp.routing.fastpath", "mcp.tool.calls", "mcp.weather.cache.requests", "mcp.chat.store.requests",
+            "mcp.calendar.checks", "mcp.upstream.quota.throttled");
+
+    private LoadTest() {}
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        String target = settings.string("target", "");
+
+        if (!target.isEmpty()) {
+            // server and stubs run elsewhere, e.g. started with mode=stubs
+            run(settings, target, null, null);
+            return;
+        }
+
+        try (StubUpstreams stubs = new StubUpstreams(settings)) {
+            System.out.println("Stub upstreams on " + stubs.baseUrl() + " (" + stubs.describe() + ")");
+
+            if ("stubs".equals(settings.string("mode", "closed"))) {
+                Map<String, String> properties = serverProperties(stubs, Files.createTempDirectory("mcp-loadtest"));
+                properties.remove("server.port");
+                System.out.println("Serving stubs until stopped; start the server with:");
+                properties.forEach((key, value) -> System.out.println("  --" + key + "=" + value));
+                Thread.currentThread().join();
+            }
+
+            try (ConfigurableApplicationContext server = startServer(stubs, settings)) {
+                int port = ((WebServerApplicationContext) server).getWebServer().getPort();
+                run(settings, "http://127.0.0.1:" + port, stubs, server);
+            }
+        }
+    }
+
+    /**
+     * Drive {@code target} as configured and report. {@code stubs} and {@code server} are null when they
+     * run in another process.
+     */
+    private static void run(LoadTestSettings settings,
+                            String target,
+                            StubUpstreams stubs,
+                            ConfigurableApplicationContext server) throws IOException {
+        String mode = settings.string("mode", "closed");
+        Duration warmup = settings.duration("warmup", Duration.ofSeconds(10));
+        Duration duration = settings.duration("duration", Duration.ofSeconds(60));
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        try (LoadDriver driver = new LoadDriver(target, new Workload(settings), recorder, settings);
+             ResourceSampler sampler = new ResourceSampler()) {
+            sampler.start(settings.duration("sample-interval", Duration.ofSeconds(1)));
+            long measureFrom = System.nanoTime() + warmup.toNanos();
+            long end = measureFrom + duration.toNanos();
+
+            String description;
+            if ("open".equals(mode)) {
+                double rate = settings.decimal("rate", 50);
+                boolean poisson = "poisson".equals(settings.string("arrivals", "poisson"));
+                description = String.format("Open loop, %.1f req/s (%s arrivals), %ds measured after %ds warm-up, target %s",
+                                            rate, poisson ? "poisson" : "uniform", duration.toSeconds(), warmup.toSeconds(), target);
+                System.out.println(description);
+                driver.runOpenLoop(rate, poisson, settings.integer("max-in-flight", 10_000), measureFrom, end);
+            } else if ("closed".equals(mode)) {
+                int users = settings.integer("users", 50);
+                Duration think = settings.duration("think-time", Duration.ZERO);
+                description = String.format("Closed loop, %d users, %d ms think time, %ds measured after %ds warm-up, target %s",
+                                            users, think.toMillis(), duration.toSeconds(), warmup.toSeconds(), target);
+                System.out.println(description);
+                driver.runClosedLoop(users, think, measureFrom, end);
+            } else {
+                throw new IllegalArgumentException("mode must be closed, open or stubs, got '" + mode + "'");
+            }
+
+            LoadReport report = new LoadReport(description,
+                                               recorder.snapshot(),
+                                               duration,
+                                               sampler.summary(measureFrom),
+                                               stubs != null ? stubs.callCounts() : Map.of(),
+                                               server != null ? serverMeters(server.getBean(MeterRegistry.class)) : Map.of());
+            report.print(System.out);
+            Path out = Path.of(settings.string("out", "target/loadtest-result.json"));
+            report.write(out, settings.asMap());
+            System.out.println("Results written to " + out.toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext startServer(StubUpstreams stubs, LoadTestSettings settings) throws IOException {
+        Map<String, Object> properties = new LinkedHashMap<>(serverProperties(stubs, Files.createTempDirectory("mcp-loadtest")));
+        properties.putAll(settings.appProperties());
+        // command-line arguments take precedence over application.properties
+        String[] args = properties.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+        return SpringApplication.run(McpServerApplication.class, args);
+    }
+
+    /**
+     * Server settings pointing every upstream at the stubs, with a throwaway directory for the answer
+     * store and a pre-authorized Google credential so no consent flow runs. Quotas are off so the run
+     * measures the node rather than the API plan; set {@code app.mcp.upstream.<api>.quota.*} to include them.
+     */
+    static Map<String, String> serverProperties(StubUpstreams stubs, Path sandbox) throws IOException {
+        String base = stubs.baseUrl();
+        writeGoogleCredentials(sandbox, base);
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.com.example.mcp", "WARN");
+        properties.put("openrouter.api.url", base + StubUpstreams.CHAT_PATH);
+        properties.put("openrouter.api.key", "loadtest");
+        properties.put("openrouter.model", "stub/primary");
+        properties.put("openrouter.routing.models", "stub/primary,stub/backup");
+        properties.put("openweather.api.url", base + StubUpstreams.WEATHER_PATH);
+        properties.put("openweather.api.group-url", base + StubUpstreams.GROUP_PATH);
+        properties.put("openweather.api.key", "loadtest");
+        // the stubs speak HTTP/1.1 in clear text
+        properties.put("mcp.upstream.openrouter.http2", "false");
+        // every virtual user connects from loopback, so per-client limits go by the X-Client-Id the driver sends
+        properties.put("mcp.admission.trust-client-id", "true");
+        properties.put("mcp.upstream.openrouter.quota.per-minute", "0");
+        properties.put("mcp.upstream.openweather.quota.per-minute", "0");
+        properties.put("mcp.chat.store.path", sandbox.resolve("answers").toString());
+        properties.put("google.credentials.path", sandbox.resolve("credentials.json").toString());
+        properties.put("google.tokens.path", sandbox.resolve("tokens").toString());
+        properties.put("google.calendar.root-url", base + "/");
+        return properties;
+    }
+
+    /** Client secrets and a stored access token valid for a day, both pointing at the stubs. */
+    private static void writeGoogleCredentials(Path sandbox, String base) throws IOException {
+        Files.writeString(sandbox.resolve("credentials.json"), """
+                {"installed": {"client_id": "loadtest", "client_secret": "loadtest",
+                  "auth_uri": "%1$s/o/oauth2/auth", "token_uri": "%1$s/token", "redirect_uris": ["http://localhost"]}}
+                """.formatted(base));
+        StoredCredential.getDefaultDataStore(new FileDataStoreFactory(sandbox.resolve("tokens").toFile()))
+                        .set(CALENDAR_USER, new StoredCredential()
+                                .setAccessToken("loadtest")
+                                .setRefreshToken("loadtest")
+                                .setExpirationTimeMilliseconds(System.currentTimeMillis() + Duration.ofDays(1).toMillis()));
+    }
+
+    /** Count of every {@link #SERVER_METERS} meter, keyed {@code name{tag=value,...}}. */
+    private static Map<String, Double> serverMeters(MeterRegistry registry) {
+        Map<String, Double> counts = new TreeMap<>();
+        for (String name : SERVER_METERS) {
+            for (Meter meter : registry.find(name).meters()) {
+                String tags = meter.getId().getTags().stream()
+                                   .map(tag -> tag.getKey() + "=" + tag.getValue())
+                                   .collect(Collectors.joining(",", "{", "}"));
+                List<Measurement> measurements = new ArrayList<>();
+                meter.measure().forEach(measurements::add);
+                measurements.stream()
+                            .filter(m -> m.getStatistic() == Statistic.COUNT)
+                            .findFirst()
+                            .ifPresent(m -> counts.merge(name + tags, m.getValue(), Double::sum));
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.mcp.server.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * Run settings, given on the command line as {@code key=value} pairs, e.g.
+ * {@code mode=open rate=200 duration=2m stub.openrouter.median=800ms}. Durations use the Spring
+ * Boot format ({@code 250ms}, {@code 30s}, {@code 2m}). Keys starting with {@code app.} are passed to the
+ * embedded server without the prefix, e.g. {@code app.mcp.admission.max-limit=1000}.
+ */
+final class LoadTestSettings {
+    private final Map<String, String> values;
+
+    private LoadTestSettings(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static LoadTestSettings parse(String[] args) {
+        Map<String, String> values = new TreeMap<>();
+        for (String arg : args) {
+            for (String pair : arg.trim().split("\\s+")) {
+                if (pair.isEmpty()) continue;
+                int eq = pair.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Expected key=value, got '" + pair + "'");
+                }
+                values.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return new LoadTestSettings(values);
+    }
+
+    String string(String key, String fallback) {
+        return values.getOrDefault(key, fallback);
+    }
+
+    int integer(String key, int fallback) {
+        String value = values.get(key);
+        return value != null ? Integer.parseInt(value) : fallback;
+    }
+
+    double decimal(String key, double fallback) {
+        String value = values.get(key);
+        return value != null ? Double.parseDouble(value) : fallback;
+    }
+
+    Duration duration(String key, Duration fallback) {
+        String value = values.get(key);
+        return value != null ? DurationStyle.detectAndParse(value) : fallback;
+    }
+
+    /** Weighted entries such as {@code weather:50,chat:30}, in the given order. */
+    Map<String, Integer> weights(String key, String fallback) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : string(key, fallback).split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(parts[0], parts.length > 1 ? Integer.parseInt(parts[1]) : 1);
+        }
+        return weights;
+    }
+
+    /** Server property overrides: every {@code app.*} setting without its prefix. */
+    Map<String, Object> appProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (key.startsWith("app.")) properties.put(key.substring(4), value);
+        });
+        return properties;
+    }
+
+    /** Everything given on the command line, for the report. */
+    Map<String, String> asMap() {
+        return values;
+    }
+}
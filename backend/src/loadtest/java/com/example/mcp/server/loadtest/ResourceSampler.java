@@ -0,0 +1,116 @@
+package com.example.mcp.server.loadtest;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.buffer.PooledByteBufAllocator;
+
+/**
+ * Samples this JVM once per {@code sample-interval}: process CPU, heap, resident set size (Linux
+ * {@code /proc/self/status}), direct memory (JDK buffers and Netty's pooled arenas), live threads and
+ * cumulative GC. The stubs and the driver run in the same JVM as an embedded server, so these numbers
+ * are an upper bound for the server alone.
+ */
+final class ResourceSampler implements AutoCloseable {
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    private final List<Sample> samples = new ArrayList<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loadtest-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void start(Duration interval) {
+        executor.scheduleAtFixedRate(this::sample, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** Summary of the samples taken at or after {@code fromNanos}. */
+    synchronized Map<String, Object> summary(long fromNanos) {
+        List<Sample> window = samples.stream().filter(sample -> sample.nanos() >= fromNanos).toList();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("cores", os.getAvailableProcessors());
+        if (window.size() < 2) return summary;
+
+        Sample first = window.get(0);
+        Sample last = window.get(window.size() - 1);
+        summary.put("cpuAvgPercent", round(window.stream().mapToDouble(Sample::cpu).filter(cpu -> cpu >= 0).average().orElse(-1) * 100));
+        summary.put("cpuMaxPercent", round(window.stream().mapToDouble(Sample::cpu).max().orElse(-1) * 100));
+        summary.put("heapMaxMb", mb(window.stream().mapToLong(Sample::heap).max().orElse(0)));
+        summary.put("rssMaxMb", mb(window.stream().mapToLong(Sample::rss).max().orElse(-1)));
+        summary.put("directMaxMb", mb(window.stream().mapToLong(Sample::direct).max().orElse(0)));
+        summary.put("threadsMax", window.stream().mapToInt(Sample::threads).max().orElse(0));
+        summary.put("gcCount", last.gcCount() - first.gcCount());
+        summary.put("gcTimeMs", last.gcMillis() - first.gcMillis());
+        summary.put("gcTimePercent", round(100.0 * (last.gcMillis() - first.gcMillis()) / Math.max(1, (last.nanos() - first.nanos()) / 1e6)));
+        summary.put("loadAverage", round(os.getSystemLoadAverage()));
+        return summary;
+    }
+
+    private void sample() {
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcMillis += Math.max(0, gc.getCollectionTime());
+        }
+        long direct = PooledByteBufAllocator.DEFAULT.metric().usedDirectMemory();
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) direct += pool.getMemoryUsed();
+        }
+        Sample sample = new Sample(System.nanoTime(),
+                                   os.getProcessCpuLoad(),
+                                   ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+                                   residentSetBytes(),
+                                   direct,
+                                   ManagementFactory.getThreadMXBean().getThreadCount(),
+                                   gcCount,
+                                   gcMillis);
+        synchronized (this) {
+            samples.add(sample);
+        }
+    }
+
+    /** VmRSS from {@code /proc/self/status}, -1 off Linux. */
+    private static long residentSetBytes() {
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D+", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return -1;
+    }
+
+    private static double mb(long bytes) {
+        return bytes < 0 ? -1 : round(bytes / (1024.0 * 1024.0));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private record Sample(long nanos, double cpu, long heap, long rss, long direct, int threads, long gcCount, long gcMillis) {}
+}
@@ -0,0 +1,43 @@
+package com.example.mcp.server.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How one stubbed upstream answers: a log-normal response latency fitted to a median and a p99, plus
+ * the share of calls failing with 500 or throttled with 429. Read from {@code stub.<api>.*}:
+ * {@code median}, {@code p99}, {@code error-rate}, {@code throttle-rate}.
+ */
+record StubBehavior(Duration median, Duration p99, double errorRate, double throttleRate) {
+    /** z-score of the 99th percentile of a standard normal distribution. */
+    private static final double Z_99 = 2.326;
+
+    static StubBehavior of(LoadTestSettings settings, String api, Duration median, Duration p99) {
+        String prefix = "stub." + api + ".";
+        return new StubBehavior(settings.duration(prefix + "median", median),
+                                settings.duration(prefix + "p99", p99),
+                                settings.decimal(prefix + "error-rate", 0),
+                                settings.decimal(prefix + "throttle-rate", 0));
+    }
+
+    Duration sampleLatency() {
+        double medianNanos = Math.max(1, median.toNanos());
+        double sigma = Math.log(Math.max(p99.toNanos(), medianNanos) / medianNanos) / Z_99;
+        double nanos = medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian());
+        return Duration.ofNanos((long) nanos);
+    }
+
+    /** HTTP status for the next call: 500, 429 or 200. */
+    int sampleStatus() {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < errorRate) return 500;
+        if (roll < errorRate + throttleRate) return 429;
+        return 200;
+    }
+
+    @Override
+    public String toString() {
+        return "median " + median.toMillis() + " ms, p99 " + p99.toMillis() + " ms, errors " + errorRate
+               + ", throttled " + throttleRate;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.mcp.server.loadtest;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * In-memory primary calendar behind the Calendar v3 stub: what {@code events.list} (time range or
+ * {@code syncToken}), {@code events.insert} and {@code calendars.get} need. Sync tokens are the
+ * calendar's change counter.
+ */
+final class StubCalendar {
+    private final Map<String, StoredEvent> events = new LinkedHashMap<>();
+    private long version;
+    private long nextId;
+
+    /** Add {@code count} one-hour events at random working hours over the next {@code days} days. */
+    synchronized void seed(int count, int days) {
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            Instant start = today.plus(random.nextInt(days), ChronoUnit.DAYS).plus(8 + random.nextInt(10), ChronoUnit.HOURS);
+            add("Seeded meeting " + i, start, start.plus(1, ChronoUnit.HOURS));
+        }
+    }
+
+    /** Events overlapping {@code [timeMin, timeMax)}, or every change after {@code syncToken}. */
+    synchronized Map<String, Object> list(String timeMin, String timeMax, String syncToken) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        if (syncToken != null) {
+            long since = Long.parseLong(syncToken);
+            for (StoredEvent event : events.values()) {
+                if (event.version > since) items.add(event.toJson());
+            }
+        } else {
+            Instant from = timeMin != null ? parse(timeMin) : Instant.MIN;
+            Instant to = timeMax != null ? parse(timeMax) : Instant.MAX;
+            for (StoredEvent event : events.values()) {
+                if (event.start.isBefore(to) && from.isBefore(event.end)) items.add(event.toJson());
+            }
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("kind", "calendar#events");
+        page.put("items", items);
+        page.put("nextSyncToken", Long.toString(version));
+        return page;
+    }
+
+    synchronized Map<String, Object> insert(JsonNode body) {
+        StoredEvent event = add(body.path("summary").asText("Untitled"),
+                                parse(body.path("start").path("dateTime").asText()),
+                                parse(body.path("end").path("dateTime").asText()));
+        return event.toJson();
+    }
+
+    synchronized int size() {
+        return events.size();
+    }
+
+    private StoredEvent add(String summary, Instant start, Instant end) {
+        StoredEvent event = new StoredEvent("stub" + ++nextId, summary, start, end, ++version);
+        events.put(event.id, event);
+        return event;
+    }
+
+    private static Instant parse(String rfc3339) {
+        return OffsetDateTime.parse(rfc3339).toInstant();
+    }
+
+    private record StoredEvent(String id, String summary, Instant start, Instant end, long version) {
+        Map<String, Object> toJson() {
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("kind", "calendar#event");
+            json.put("id", id);
+            json.put("status", "confirmed");
+            json.put("summary", summary);
+            json.put("htmlLink", "http://calendar.stub/event?eid=" + id);
+            json.put("start", Map.of("dateTime", start.toString()));
+            json.put("end", Map.of("dateTime", end.toString()));
+            return json;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.mcp.server.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Local stand-ins for OpenRouter, OpenWeather and Google Calendar on one loopback port, shaped like
+ * the real APIs as far as the server reads them:
+ * <ul>
+ *   <li>{@code POST /api/v1/chat/completions}: routing calls (those with a system prompt) get a tool
+ *       decision derived from the user prompt; chat calls get a canned answer, streamed token by token
+ *       when {@code stream} is set</li>
+ *   <li>{@code GET /data/2.5/weather?q=} and {@code GET /data/2.5/group?id=}</li>
+ *   <li>{@code GET|POST /calendar/v3/calendars/primary/events} and {@code GET /calendar/v3/calendars/primary},
+ *       backed by {@link StubCalendar}</li>
+ * </ul>
+ * Every call waits a latency drawn from its API's {@link StubBehavior} and may fail with 500 or 429.
+ */
+final class StubUpstreams implements AutoCloseable {
+    static final String CHAT_PATH = "/api/v1/chat/completions";
+    static final String WEATHER_PATH = "/data/2.5/weather";
+    static final String GROUP_PATH = "/data/2.5/group";
+    static final String CALENDAR_PATH = "/calendar/v3/calendars/primary";
+
+    private static final Pattern CITY = Pattern.compile("weather in ([\\p{L}0-9-]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BOOKING = Pattern.compile(
+            "book (.+?) at (\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}Z)(?: for (\\d+) minutes)?", Pattern.CASE_INSENSITIVE);
+    private static final String[] FILLER = ("this is a canned answer from the load test stub so the stream has a "
+                                            + "realistic number of tokens to frame and send").split(" ");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final StubBehavior openrouter;
+    private final StubBehavior openweather;
+    private final StubBehavior calendar;
+    private final int answerTokens;
+    private final Duration tokenDelay;
+    private final StubCalendar calendarState = new StubCalendar();
+    private final Map<Long, String> citiesById = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final DisposableServer server;
+
+    StubUpstreams(LoadTestSettings settings) {
+        this.openrouter = StubBehavior.of(settings, "openrouter", Duration.ofMillis(400), Duration.ofSeconds(2));
+        this.openweather = StubBehavior.of(settings, "openweather", Duration.ofMillis(80), Duration.ofMillis(400));
+        this.calendar = StubBehavior.of(settings, "calendar", Duration.ofMillis(120), Duration.ofMillis(600));
+        this.answerTokens = settings.integer("stub.openrouter.tokens", 60);
+        this.tokenDelay = settings.duration("stub.openrouter.token-delay", Duration.ofMillis(15));
+        calendarState.seed(settings.integer("stub.calendar.seed-events", 200), 60);
+
+        this.server = HttpServer.create()
+                                .host("127.0.0.1")
+                                .port(settings.integer("stub.port", 0))
+                                .route(routes -> routes.post(CHAT_PATH, this::chat)
+                                                       .get(WEATHER_PATH, this::weather)
+                                                       .get(GROUP_PATH, this::weatherGroup)
+                                                       .get(CALENDAR_PATH, this::calendar)
+                                                       .get(CALENDAR_PATH + "/events", this::listEvents)
+                                                       .post(CALENDAR_PATH + "/events", this::insertEvent))
+                                .bindNow();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    String describe() {
+        return "openrouter: " + openrouter + "; openweather: " + openweather + "; calendar: " + calendar;
+    }
+
+    /** Calls answered so far, keyed {@code "<api> <status>"}. */
+    Map<String, Long> callCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        calls.forEach((key, count) -> counts.put(key, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private Mono<Void> chat(HttpServerRequest request, HttpServerResponse response) {
+        return body(request).flatMap(json -> {
+            JsonNode messages = json.path("messages");
+            boolean routing = messages.size() > 1 && "system".equals(messages.path(0).path("role").asText());
+            String user = messages.path(messages.size() - 1).path("content").asText();
+            String model = json.path("model").asText("stub");
+
+            if (json.path("stream").asBoolean(false)) {
+                return answer("openrouter", openrouter, response, () -> stream(response, answer(user)));
+            }
+            String content = routing ? route(user) : answer(user);
+            int promptChars = 0;
+            for (JsonNode message : messages) promptChars += message.path("content").asText().length();
+            Map<String, Object> completion = Map.of(
+                    "id", "stub-" + System.nanoTime(),
+                    "model", model,
+                    "choices", List.of(Map.of("message", Map.of("role", "assistant", "content", content))),
+                    "usage", Map.of("prompt_tokens", promptChars / 4,
+                                    "completion_tokens", content.length() / 4,
+                                    "prompt_tokens_details", Map.of("cached_tokens", 0)));
+            return answer("openrouter", openrouter, response, () -> json(response, completion));
+        });
+    }
+
+    private Mono<Void> weather(HttpServerRequest request, HttpServerResponse response) {
+        String city = Objects.requireNonNullElse(param(request, "q"), "Nowhere");
+        return answer("openweather", openweather, response, () -> json(response, reading(city)));
+    }
+
+    private Mono<Void> weatherGroup(HttpServerRequest request, HttpServerResponse response) {
+        List<Object> list = new ArrayList<>();
+        for (String id : Objects.requireNonNullElse(param(request, "id"), "").split(",")) {
+            if (id.isBlank()) continue;
+            String city = citiesById.get(Long.parseLong(id.trim()));
+            if (city != null) list.add(reading(city));
+        }
+        return answer("openweather", openweather, response, () -> json(response, Map.of("cnt", list.size(), "list", list)));
+    }
+
+    private Mono<Void> calendar(HttpServerRequest request, HttpServerResponse response) {
+        return answer("calendar", calendar, response,
+                      () -> json(response, Map.of("kind", "calendar#calendar", "id", "primary", "summary", "Load test")));
+    }
+
+    private Mono<Void> listEvents(HttpServerRequest request, HttpServerResponse response) {
+        return answer("calendar", calendar, response, () -> json(response, calendarState.list(
+                param(request, "timeMin"), param(request, "timeMax"), param(request, "syncToken"))));
+    }
+
+    private Mono<Void> insertEvent(HttpServerRequest request, HttpServerResponse response) {
+        return body(request).flatMap(event -> answer("calendar", calendar, response,
+                                                     () -> json(response, calendarState.insert(event))));
+    }
+
+    /**
+     * Wait the API's latency, then send {@code success} or an error status. The outcome is drawn before
+     * waiting so failed calls take as long as successful ones.
+     */
+    private Mono<Void> answer(String api, StubBehavior behavior, HttpServerResponse response, Supplier<Mono<Void>> success) {
+        int status = behavior.sampleStatus();
+        calls.computeIfAbsent(api + " " + status, key -> new LongAdder()).increment();
+        return Mono.delay(behavior.sampleLatency())
+                   .then(Mono.defer(() -> {
+                       if (status == 200) return success.get();
+                       response.status(status);
+                       if (status == 429) response.header("Retry-After", "1");
+                       return json(response, Map.of("error", Map.of("code", status, "message", "stub " + api + " " + status)));
+                   }));
+    }
+
+    /** Tool decision for a routing call, in the format the router prompt asks for. */
+    private String route(String prompt) {
+        List<Map<String, Object>> steps = new ArrayList<>();
+        Matcher city = CITY.matcher(prompt);
+        if (city.find()) {
+            steps.add(step("weather", "getWeather", Map.of("city", city.group(1))));
+        }
+        Matcher booking = BOOKING.matcher(prompt);
+        if (booking.find()) {
+            steps.add(step("booking", "bookEvent", Map.of(
+                    "title", booking.group(1),
+                    "startIsoUtc", booking.group(2),
+                    "durationMin", booking.group(3) != null ? Integer.parseInt(booking.group(3)) : 30)));
+        }
+        if (steps.isEmpty()) {
+            return write(Map.of("toolName", "askChat", "arguments", Map.of("prompt", prompt)));
+        }
+        if (steps.size() == 1) {
+            return write(Map.of("toolName", steps.get(0).get("toolName"), "arguments", steps.get(0).get("arguments")));
+        }
+        return write(steps);
+    }
+
+    private static Map<String, Object> step(String id, String tool, Map<String, Object> arguments) {
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("id", id);
+        step.put("toolName", tool);
+        step.put("arguments", arguments);
+        step.put("dependsOn", List.of());
+        return step;
+    }
+
+    private String answer(String prompt) {
+        StringBuilder answer = new StringBuilder("Stub answer to \"").append(prompt).append("\":");
+        for (int i = 0; i < answerTokens; i++) {
+            answer.append(' ').append(FILLER[i % FILLER.length]);
+        }
+        return answer.toString();
+    }
+
+    /** OpenAI-style SSE: one {@code delta} per word, then {@code [DONE]}, each flushed on its own. */
+    private Mono<Void> stream(HttpServerResponse response, String answer) {
+        List<String> tokens = Arrays.stream(answer.split("(?<= )")).toList();
+        Flux<ByteBuf> events = Flux.fromIterable(tokens)
+                                   .delayElements(tokenDelay)
+                                   .map(token -> "data: " + write(Map.of("choices", List.of(Map.of("delta", Map.of("content", token))))) + "\n\n")
+                                   .concatWithValues("data: [DONE]\n\n")
+                                   .map(event -> Unpooled.copiedBuffer(event, StandardCharsets.UTF_8));
+        return Mono.from(response.header("Content-Type", "text/event-stream")
+                                 .send(events, buffer -> true));
+    }
+
+    private Map<String, Object> reading(String city) {
+        long id = Math.floorMod(city.toLowerCase().hashCode(), 1_000_000) + 1;
+        citiesById.putIfAbsent(id, city);
+        double temperature = Math.round(ThreadLocalRandom.current().nextDouble(-5, 30) * 10) / 10.0;
+        return Map.of("id", id,
+                      "name", city,
+                      "main", Map.of("temp", temperature),
+                      "weather", List.of(Map.of("description", "scattered clouds")));
+    }
+
+    private Mono<Void> json(HttpServerResponse response, Object body) {
+        return Mono.from(response.header("Content-Type", "application/json")
+                                 .sendString(Mono.just(write(body))));
+    }
+
+    /** The request body as JSON; the Google client gzips what it sends. */
+    private Mono<JsonNode> body(HttpServerRequest request) {
+        boolean gzip = "gzip".equalsIgnoreCase(request.requestHeaders().get("Content-Encoding"));
+        return request.receive()
+                      .aggregate()
+                      .asByteArray()
+                      .defaultIfEmpty(new byte[0])
+                      .map(bytes -> {
+                          try {
+                              byte[] raw = gzip ? new GZIPInputStream(new ByteArrayInputStream(bytes)).readAllBytes() : bytes;
+                              return raw.length > 0 ? mapper.readTree(raw) : mapper.createObjectNode();
+                          } catch (IOException e) {
+                              throw new UncheckedIOException(e);
+                          }
+                      });
+    }
+
+    private static String param(HttpServerRequest request, String name) {
+        List<String> values = new QueryStringDecoder(request.uri()).parameters().get(name);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+
+    private String write(Object value) {
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.mcp.server.loadtest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mixed prompt workload, drawn at random by weight ({@code mix=weather:50,chat:30,calendar:15,multi:5}):
+ * <ul>
+ *   <li>{@code weather}: "What's the weather in City17?", over {@code cities} distinct cities</li>
+ *   <li>{@code chat}: a general question over {@code topics} distinct topics, routed to askChat</li>
+ *   <li>{@code calendar}: a 30-minute booking at a random working-hours slot in the next 60 days</li>
+ *   <li>{@code multi}: weather and a booking in one prompt, routed as a two-step plan</li>
+ * </ul>
+ * Fewer cities or topics mean more hits in the server's caches; the stub router understands exactly
+ * these phrasings.
+ */
+final class Workload {
+    static final Set<String> SCENARIOS = Set.of("weather", "chat", "calendar", "multi");
+
+    private final String[] scenarios;
+    private final int[] cumulativeWeights;
+    private final int cities;
+    private final int topics;
+
+    Workload(LoadTestSettings settings) {
+        Map<String, Integer> mix = settings.weights("mix", "weather:50,chat:30,calendar:15,multi:5");
+        this.scenarios = new String[mix.size()];
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            if (!SCENARIOS.contains(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown scenario '" + entry.getKey() + "', expected one of " + SCENARIOS);
+            }
+            total += entry.getValue();
+            scenarios[i] = entry.getKey();
+            cumulativeWeights[i++] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("mix needs at least one scenario with a positive weight");
+        }
+        this.cities = settings.integer("cities", 100);
+        this.topics = settings.integer("topics", 500);
+    }
+
+    Prompt next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int i = 0;
+        while (roll >= cumulativeWeights[i]) i++;
+
+        String scenario = scenarios[i];
+        String text = switch (scenario) {
+            case "weather" -> "What's the weather in City" + random.nextInt(cities) + "?";
+            case "chat" -> "Explain topic " + random.nextInt(topics) + " in a few sentences";
+            case "calendar" -> "Book load test sync at " + slot(random) + " for 30 minutes";
+            default -> "What's the weather in City" + random.nextInt(cities) + " and book lunch at " + slot(random);
+        };
+        return new Prompt(scenario, text);
+    }
+
+    private static Instant slot(ThreadLocalRandom random) {
+        return Instant.now()
+                      .truncatedTo(ChronoUnit.DAYS)
+                      .plus(1 + random.nextInt(60), ChronoUnit.DAYS)
+                      .plus(8 * 60 + 30 * random.nextInt(20), ChronoUnit.MINUTES);
+    }
+
+    record Prompt(String scenario, String text) {}
+}
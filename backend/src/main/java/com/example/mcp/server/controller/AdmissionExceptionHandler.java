@@ -0,0 +1,26 @@
+package com.example.mcp.server.controller;
+
+import com.example.mcp.server.helper.AdmissionRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns shed requests into fast 429/503 answers with a Retry-After hint.
+ */
+@Slf4j
+@RestControllerAdvice
+public class AdmissionExceptionHandler {
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> handleRejected(AdmissionRejectedException ex) {
+        log.debug("Request shed with {}: {}", ex.getStatus().value(), ex.getMessage());
+        return ResponseEntity.status(ex.getStatus())
+                             .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+                             .contentType(MediaType.TEXT_PLAIN)
+                             .body(ex.getMessage());
+    }
+}
@@ -1,49 +1,121 @@
 package com.example.mcp.server.controller;
 
-import com.example.mcp.server.helper.ToolInvoker;
-import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.helper.AdmissionLimiter;
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.helper.PlanExecutor;
+import com.example.mcp.server.helper.StreamFramer;
+import com.example.mcp.server.model.BatchRequest;
+import com.example.mcp.server.model.BatchResult;
+import com.example.mcp.server.model.FramingMode;
+import com.example.mcp.server.service.BatchService;
 import com.example.mcp.server.service.LlmService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.SignalType;
 
+import java.net.InetSocketAddress;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
 @RequestMapping("/mcp")
 public class McpController {
+    /** Identifies the caller for per-client admission limits when {@link #trustClientId} is set. */
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+
     private final LlmService llmService;
-    private final ToolInvoker toolInvoker;
+    private final PlanExecutor planExecutor;
+    private final StreamFramer streamFramer;
+    private final McpMetrics metrics;
+    private final BatchService batchService;
+    private final AdmissionLimiter admissionLimiter;
+
+    /**
+     * Key admission limits on {@link #CLIENT_ID_HEADER} instead of the remote address. Anyone can send
+     * the header, so only enable this behind a proxy or gateway that sets it for authenticated callers.
+     */
+    @Value("${mcp.admission.trust-client-id:false}")
+    private boolean trustClientId;
 
-    public McpController(LlmService llmService, ToolInvoker toolInvoker) {
+    public McpController(LlmService llmService,
+                         PlanExecutor planExecutor,
+                         StreamFramer streamFramer,
+                         McpMetrics metrics,
+                         BatchService batchService,
+                         AdmissionLimiter admissionLimiter) {
         this.llmService = llmService;
-        this.toolInvoker = toolInvoker;
+        this.planExecutor = planExecutor;
+        this.streamFramer = streamFramer;
+        this.metrics = metrics;
+        this.batchService = batchService;
+        this.admissionLimiter = admissionLimiter;
     }
 
-    @PostMapping
-    public Flux<String> handlePrompt(@RequestBody Map<String, String> request) {
+    /**
+     * Answer a prompt as a server-sent event stream, one {@code data} event per frame. Frames may contain
+     * newlines; they arrive as multi-line {@code data} fields, which SSE clients join back with {@code \n}.
+     */
+    @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> handlePrompt(@RequestBody Map<String, String> request,
+                                                      @RequestHeader(value = CLIENT_ID_HEADER, required = false) String clientId,
+                                                      ServerHttpRequest serverRequest) {
         String prompt = request.get("prompt");
         log.info("Received prompt: {}", prompt);
 
         if (prompt == null || prompt.isBlank()) {
-            return Flux.just("No prompt provided.");
+            return Flux.just(event("No prompt provided."));
         }
 
-        return llmService.decideTool(prompt)
-                         .flatMapMany(this::handleToolDecision)
-                         .onErrorResume(ex -> Flux.just("LLM could not decide tool: " + ex.getMessage()));
+        final long start = System.nanoTime();
+        FramingMode mode = streamFramer.resolveMode(request.get("mode"));
+        Flux<String> output = admitted(clientId(clientId, serverRequest), () ->
+                llmService.decidePlan(prompt)
+                          .flatMapMany(plan -> metrics.timeStream(planExecutor.metricsTag(plan),
+                                                                  start,
+                                                                  planExecutor.execute(plan)))
+                          .onErrorResume(ex -> Flux.just("LLM could not decide tool: " + ex.getMessage())));
+
+        return streamFramer.frame(output, mode).map(McpController::event);
     }
 
-    private Flux<String> handleToolDecision(ToolDecision decision) {
-        if (decision.toolName() == null) {
-            Object answer = decision.arguments().get("answer");
-            log.info("LLM returned direct answer: {}", answer);
+    /**
+     * Run many prompts in one request. Results are streamed as newline-delimited JSON, one object per
+     * prompt tagged with its id, in the order they finish.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchResult> handleBatch(@RequestBody BatchRequest request,
+                                         @RequestHeader(value = CLIENT_ID_HEADER, required = false) String clientId,
+                                         ServerHttpRequest serverRequest) {
+        return admitted(clientId(clientId, serverRequest), () -> batchService.run(request.prompts()));
+    }
 
-            return Flux.just("Answer: " + (answer != null ? answer.toString() : "null"));
+    /**
+     * Run {@code pipeline} once the admission limiter grants a permit, and hold the permit until the
+     * response stream ends. A shed request fails with {@code AdmissionRejectedException} before any
+     * output, which {@link AdmissionExceptionHandler} turns into 429/503.
+     */
+    private <T> Flux<T> admitted(String clientId, Supplier<Flux<T>> pipeline) {
+        return admissionLimiter.acquire(clientId)
+                               .flatMapMany(permit -> pipeline.get()
+                                                              .doOnNext(item -> permit.firstChunk())
+                                                              .doFinally(signal -> permit.release(signal == SignalType.ON_ERROR)));
+    }
+
+    private String clientId(String header, ServerHttpRequest serverRequest) {
+        if (trustClientId && header != null && !header.isBlank()) {
+            return header.strip();
         }
+        InetSocketAddress remote = serverRequest.getRemoteAddress();
+        return remote != null ? remote.getHostString() : "unknown";
+    }
 
-        log.info("Delegating to ToolInvoker for tool: {}", decision.toolName());
-        return toolInvoker.invokeTool(decision.toolName(), decision.arguments());
+    private static ServerSentEvent<String> event(String data) {
+        return ServerSentEvent.builder(data).build();
     }
 }
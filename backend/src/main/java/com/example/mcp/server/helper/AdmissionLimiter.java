@@ -0,0 +1,257 @@
+package com.example.mcp.server.helper;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntSupplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Admission control in front of the {@code /mcp} pipeline. A request needs a permit before it may open
+ * upstream connections or take a blocking-tool slot:
+ * <ul>
+ *     <li>each client may hold at most {@code per-client-limit} permits, waiting or running (429 otherwise);</li>
+ *     <li>at most {@code limit} permits run at once, a bounded queue waits up to {@code queue-timeout} for
+ *     one (503 once the queue is full or the wait expires);</li>
+ *     <li>{@code limit} adapts AIMD-style: +1 per {@code limit} requests whose first chunk arrived within
+ *     {@code latency-target}, ×{@code backoff} when one is slower or fails.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class AdmissionLimiter {
+    private final boolean enabled;
+    private final int perClientLimit;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoff;
+
+    // guarded by this
+    private double limit;
+    private int inFlight;
+    private long lastDecrease;
+    private double latencyEwmaNanos;
+    private final Deque<Waiter> queue = new ArrayDeque<>();
+    private final Map<String, Integer> perClient = new HashMap<>();
+
+    private final Counter shedClientLimit;
+    private final Counter shedQueueFull;
+    private final Counter shedQueueTimeout;
+    private final Timer queueWait;
+
+    public AdmissionLimiter(MeterRegistry meterRegistry,
+                            @Value("${mcp.admission.enabled:true}") boolean enabled,
+                            @Value("${mcp.admission.per-client-limit:20}") int perClientLimit,
+                            @Value("${mcp.admission.max-queued:200}") int maxQueued,
+                            @Value("${mcp.admission.queue-timeout:2s}") Duration queueTimeout,
+                            @Value("${mcp.admission.initial-limit:100}") int initialLimit,
+                            @Value("${mcp.admission.min-limit:10}") int minLimit,
+                            @Value("${mcp.admission.max-limit:500}") int maxLimit,
+                            @Value("${mcp.admission.latency-target:5s}") Duration latencyTarget,
+                            @Value("${mcp.admission.backoff:0.9}") double backoff) {
+        this.enabled = enabled;
+        this.perClientLimit = perClientLimit;
+        this.maxQueued = maxQueued;
+        this.queueTimeout = queueTimeout;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoff = backoff;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.latencyEwmaNanos = TimeUnit.SECONDS.toNanos(1);
+
+        Gauge.builder("mcp.admission.in-flight", this, l -> l.snapshot(() -> l.inFlight)).register(meterRegistry);
+        Gauge.builder("mcp.admission.queued", this, l -> l.snapshot(l.queue::size)).register(meterRegistry);
+        Gauge.builder("mcp.admission.limit", this, l -> l.snapshot(() -> (int) l.limit))
+             .description("Current adaptive concurrency limit")
+             .register(meterRegistry);
+        this.shedClientLimit = Counter.builder("mcp.admission.shed").tag("reason", "client_limit").register(meterRegistry);
+        this.shedQueueFull = Counter.builder("mcp.admission.shed").tag("reason", "queue_full").register(meterRegistry);
+        this.shedQueueTimeout = Counter.builder("mcp.admission.shed").tag("reason", "queue_timeout").register(meterRegistry);
+        this.queueWait = Timer.builder("mcp.admission.queue.wait").register(meterRegistry);
+    }
+
+    /**
+     * Wait for a permit. Fails with {@link AdmissionRejectedException} when the request is shed.
+     *
+     * @param clientId caller identity for the per-client limit
+     */
+    public Mono<Permit> acquire(String clientId) {
+        if (!enabled) {
+            return Mono.just(new Permit(clientId, false));
+        }
+
+        Mono<Permit> admission = Mono.create(sink -> {
+            final Waiter waiter;
+            final AdmissionRejectedException rejection;
+            synchronized (this) {
+                if (perClient.getOrDefault(clientId, 0) >= perClientLimit) {
+                    shedClientLimit.increment();
+                    rejection = reject(HttpStatus.TOO_MANY_REQUESTS, "Too many concurrent requests for client " + clientId);
+                    waiter = null;
+                } else if (inFlight < (int) limit && queue.isEmpty()) {
+                    perClient.merge(clientId, 1, Integer::sum);
+                    inFlight++;
+                    rejection = null;
+                    waiter = null;
+                } else if (queue.size() >= maxQueued) {
+                    shedQueueFull.increment();
+                    rejection = reject(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, try again later");
+                    waiter = null;
+                } else {
+                    perClient.merge(clientId, 1, Integer::sum);
+                    waiter = new Waiter(clientId, sink, System.nanoTime());
+                    queue.addLast(waiter);
+                    rejection = null;
+                }
+            }
+
+            // signal outside the lock, the subscriber may start the whole pipeline synchronously
+            if (rejection != null) {
+                sink.error(rejection);
+                return;
+            }
+            if (waiter == null) {
+                sink.success(new Permit(clientId, true));
+                return;
+            }
+
+            Disposable deadline = Schedulers.parallel().schedule(() -> expire(waiter),
+                                                                 queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            sink.onDispose(() -> {
+                deadline.dispose();
+                abandon(waiter);
+            });
+        });
+        // a permit granted just as the caller cancelled is dropped by the sink, give the slot back
+        return admission.doOnDiscard(Permit.class, permit -> permit.release(false));
+    }
+
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!queue.remove(waiter)) return;
+            releaseClient(waiter.clientId);
+        }
+        shedQueueTimeout.increment();
+        queueWait.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+        waiter.sink.error(reject(HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for capacity, try again later"));
+    }
+
+    /** The caller went away while still queued. */
+    private void abandon(Waiter waiter) {
+        synchronized (this) {
+            if (queue.remove(waiter)) {
+                releaseClient(waiter.clientId);
+            }
+        }
+    }
+
+    private void release(Permit permit, long latencyNanos, boolean failed, boolean measured) {
+        List<Waiter> granted = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            releaseClient(permit.clientId);
+            if (measured) {
+                adapt(latencyNanos, failed);
+            }
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+                granted.add(queue.pollFirst());
+                inFlight++;
+            }
+        }
+        for (Waiter waiter : granted) {
+            queueWait.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+            waiter.sink.success(new Permit(waiter.clientId, true));
+        }
+    }
+
+    private void adapt(long latencyNanos, boolean failed) {
+        latencyEwmaNanos = 0.8 * latencyEwmaNanos + 0.2 * latencyNanos;
+        long now = System.nanoTime();
+        if (failed || latencyNanos > latencyTargetNanos) {
+            // one decrease per target interval, so a burst of slow responses does not collapse the limit
+            if (now - lastDecrease > latencyTargetNanos) {
+                double previous = limit;
+                limit = Math.max(minLimit, limit * backoff);
+                lastDecrease = now;
+                if ((int) previous != (int) limit) {
+                    log.info("Admission limit lowered to {} (latency {} ms)", (int) limit, TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+                }
+            }
+        } else if (inFlight + 1 >= (int) limit) {
+            // only grow while the limit is actually in use
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private void releaseClient(String clientId) {
+        perClient.computeIfPresent(clientId, (id, held) -> held > 1 ? held - 1 : null);
+    }
+
+    private AdmissionRejectedException reject(HttpStatus status, String message) {
+        long seconds;
+        synchronized (this) {
+            seconds = TimeUnit.NANOSECONDS.toSeconds((long) latencyEwmaNanos);
+        }
+        return new AdmissionRejectedException(status, Duration.ofSeconds(Math.max(1, Math.min(30, seconds))), message);
+    }
+
+    private synchronized int snapshot(IntSupplier value) {
+        return value.getAsInt();
+    }
+
+    private record Waiter(String clientId, MonoSink<Permit> sink, long enqueuedAt) {}
+
+    /**
+     * A granted slot. Call {@link #firstChunk()} when the response starts and {@link #release(boolean)}
+     * when it ends; the latency to the first chunk drives the adaptive limit. Requests that fail or are
+     * cancelled before their first chunk count only when they failed.
+     */
+    public final class Permit {
+        private final String clientId;
+        private final boolean tracked;
+        private final long start = System.nanoTime();
+        private volatile long firstChunkNanos = -1;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(String clientId, boolean tracked) {
+            this.clientId = clientId;
+            this.tracked = tracked;
+        }
+
+        public void firstChunk() {
+            if (firstChunkNanos < 0) {
+                firstChunkNanos = System.nanoTime() - start;
+            }
+        }
+
+        public void release(boolean failed) {
+            if (!tracked || !released.compareAndSet(false, true)) {
+                return;
+            }
+            long latency = firstChunkNanos >= 0 ? firstChunkNanos : System.nanoTime() - start;
+            AdmissionLimiter.this.release(this, latency, failed, failed || firstChunkNanos >= 0);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.mcp.server.helper;
+
+import java.time.Duration;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A request turned away by {@link AdmissionLimiter}: 429 when the client is over its own limit,
+ * 503 when the server is saturated. {@code retryAfter} becomes the Retry-After header.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+    private final HttpStatus status;
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(HttpStatus status, Duration retryAfter, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.retryAfter = retryAfter;
+    }
+}
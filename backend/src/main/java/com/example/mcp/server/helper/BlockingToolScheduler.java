@@ -0,0 +1,110 @@
+package com.example.mcp.server.helper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Execution lane for tools that block their calling thread. Every call gets its own virtual thread;
+ * a semaphore caps how many run at once and a bounded number may wait for a slot, so a slow upstream
+ * backs up here instead of stalling the Netty event loop.
+ */
+@Slf4j
+@Component
+public class BlockingToolScheduler {
+    private final Scheduler scheduler =
+            Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "blocking-tools");
+
+    private final Semaphore permits;
+    private final int maxQueued;
+    private final Duration acquireTimeout;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Counter rejected;
+    private final Timer queueWait;
+
+    public BlockingToolScheduler(MeterRegistry meterRegistry,
+                                 @Value("${mcp.tools.blocking.max-concurrency:64}") int maxConcurrency,
+                                 @Value("${mcp.tools.blocking.max-queued:1000}") int maxQueued,
+                                 @Value("${mcp.tools.blocking.acquire-timeout:30s}") Duration acquireTimeout) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxQueued = maxQueued;
+        this.acquireTimeout = acquireTimeout;
+
+        Gauge.builder("mcp.tools.blocking.queued", queued, AtomicInteger::get)
+             .description("Blocking tool calls waiting for a slot")
+             .register(meterRegistry);
+        Gauge.builder("mcp.tools.blocking.active", active, AtomicInteger::get)
+             .description("Blocking tool calls currently running")
+             .register(meterRegistry);
+        this.rejected = Counter.builder("mcp.tools.blocking.rejected").register(meterRegistry);
+        this.queueWait = Timer.builder("mcp.tools.blocking.queue.wait").register(meterRegistry);
+    }
+
+    /**
+     * Run a blocking call on its own virtual thread once a slot is free.
+     *
+     * @param toolName tool name, for logging
+     * @param task the blocking call
+     * @return Mono completing with the call's result on the virtual thread
+     */
+    public <T> Mono<T> run(String toolName, Callable<T> task) {
+        return Mono.fromCallable(() -> {
+                       acquire(toolName);
+                       active.incrementAndGet();
+                       try {
+                           return task.call();
+                       } finally {
+                           active.decrementAndGet();
+                           permits.release();
+                       }
+                   })
+                   .subscribeOn(scheduler);
+    }
+
+    private void acquire(String toolName) throws InterruptedException {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            log.warn("Blocking-tool queue full, rejecting '{}'", toolName);
+            throw new RejectedExecutionException("Too many pending calls for tool: " + toolName);
+        }
+
+        final long start = System.nanoTime();
+        final boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } finally {
+            queued.decrementAndGet();
+            queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            log.warn("Timed out waiting for a blocking-tool slot for '{}'", toolName);
+            throw new RejectedExecutionException("Timed out waiting to run tool: " + toolName);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,395 @@
+package com.example.mcp.server.helper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.mcp.server.model.BusyInterval;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.calendar.Calendar;
+import com.google.api.services.calendar.model.Event;
+import com.google.api.services.calendar.model.EventDateTime;
+import com.google.api.services.calendar.model.Events;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Local copy of the primary calendar's busy periods, so {@code bookEvent} can check for conflicts
+ * without a Google round trip.
+ * <p>
+ * A full sync loads the events from {@code look-behind} ago to {@code horizon} ahead; after that,
+ * incremental syncs with the returned {@code syncToken} apply only what changed, every
+ * {@code sync-interval}. A full sync runs again when the token expires (410) or when less than half of the
+ * horizon is left. Our own bookings are added as soon as they are inserted, and a booking in progress
+ * holds its slot so concurrent bookings in this process conflict locally.
+ * <p>
+ * A check is answered locally when the slot lies in the synced window and the last sync is at most
+ * {@code max-staleness} old; otherwise the caller should confirm with Google before inserting. A slot
+ * that touches an event someone else created, moved or deleted within {@code race-window} is also
+ * confirmed: a part of the calendar that is being edited is where a change since the last sync, and
+ * so a double booking, is likely. Events whose change the index made itself don't count.
+ */
+@Slf4j
+@Component
+public class CalendarBusyIndex {
+    private final CalendarClientManager clientManager;
+    private final McpMetrics metrics;
+    private final AtomicLong reservations = new AtomicLong();
+
+    @Value("${google.calendar.busy-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${google.calendar.busy-index.sync-interval:30s}")
+    private Duration syncInterval;
+
+    @Value("${google.calendar.busy-index.horizon:90d}")
+    private Duration horizon;
+
+    @Value("${google.calendar.busy-index.look-behind:1d}")
+    private Duration lookBehind;
+
+    @Value("${google.calendar.busy-index.max-staleness:2m}")
+    private Duration maxStaleness;
+
+    @Value("${google.calendar.busy-index.race-window:10m}")
+    private Duration raceWindow;
+
+    // guarded by this
+    private final Map<String, BusyInterval> events = new HashMap<>();
+    private final List<BusyInterval> pending = new ArrayList<>();
+    // positions of events changed by others, old and new, with the time the change was seen
+    private final List<RecentChange> recentChanges = new ArrayList<>();
+    // our own bookings committed while a full sync is fetching; its result may predate them
+    private final Map<String, BusyInterval> committedDuringFullSync = new HashMap<>();
+    private boolean fullSyncRunning;
+    private String syncToken;
+    private long windowStart;
+    private long windowEnd;
+
+    private volatile Snapshot snapshot = Snapshot.of(List.of());
+    private volatile long lastSyncMillis;
+    private Disposable syncer;
+
+    private final Counter localFree;
+    private final Counter localConflict;
+    private final Counter remote;
+    private final Counter remoteRace;
+    private final Timer fullSyncs;
+    private final Timer incrementalSyncs;
+
+    public CalendarBusyIndex(CalendarClientManager clientManager, McpMetrics metrics, MeterRegistry meterRegistry) {
+        this.clientManager = clientManager;
+        this.metrics = metrics;
+        this.localFree = Counter.builder("mcp.calendar.checks").tag("result", "local_free").register(meterRegistry);
+        this.localConflict = Counter.builder("mcp.calendar.checks").tag("result", "local_conflict").register(meterRegistry);
+        this.remote = Counter.builder("mcp.calendar.checks").tag("result", "remote").register(meterRegistry);
+        this.remoteRace = Counter.builder("mcp.calendar.checks").tag("result", "remote_race").register(meterRegistry);
+        this.fullSyncs = Timer.builder("mcp.calendar.busy-index.sync").tag("type", "full").register(meterRegistry);
+        this.incrementalSyncs = Timer.builder("mcp.calendar.busy-index.sync").tag("type", "incremental").register(meterRegistry);
+        Gauge.builder("mcp.calendar.busy-index.size", this, index -> index.snapshot.byStart.length)
+             .description("Busy periods held in the local calendar index")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Start syncing once the application is up. Never triggers the OAuth consent flow: until a Google
+     * client exists, syncs are skipped and every check goes to Google.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+
+        syncer = Flux.interval(Duration.ZERO, syncInterval, Schedulers.boundedElastic())
+                     .subscribe(tick -> {
+                         try {
+                             sync();
+                         } catch (Exception e) {
+                             log.warn("Calendar busy-index sync failed: {}", e.getMessage());
+                         }
+                     });
+    }
+
+    @PreDestroy
+    void stop() {
+        if (syncer != null) {
+            syncer.dispose();
+        }
+    }
+
+    /**
+     * Hold {@code [start, end)} for a booking, unless it overlaps a known event or another booking in
+     * progress. A granted reservation must be {@link #commit committed} or {@link #release released}.
+     */
+    public synchronized Reservation reserve(long start, long end, String summary) {
+        BusyInterval conflict = snapshot.firstOverlap(start, end);
+        if (conflict == null) {
+            conflict = pending.stream().filter(p -> p.overlaps(start, end)).findFirst().orElse(null);
+        }
+        if (conflict != null) {
+            localConflict.increment();
+            return new Reservation(null, conflict, false);
+        }
+
+        boolean verify = !covers(start, end);
+        if (verify) {
+            remote.increment();
+        } else if (nearRecentChange(start, end)) {
+            verify = true;
+            remoteRace.increment();
+        } else {
+            localFree.increment();
+        }
+        BusyInterval held = new BusyInterval("pending-" + reservations.incrementAndGet(), summary, start, end);
+        pending.add(held);
+        return new Reservation(held, null, verify);
+    }
+
+    /**
+     * The booking was inserted: replace the held slot by the created event.
+     */
+    public synchronized void commit(Reservation reservation, Event created) {
+        pending.remove(reservation.held());
+        BusyInterval interval = toInterval(created);
+        if (interval == null) {
+            interval = new BusyInterval(created.getId(), created.getSummary(), reservation.held().start(), reservation.held().end());
+        }
+        events.put(created.getId(), interval);
+        if (fullSyncRunning) {
+            committedDuringFullSync.put(created.getId(), interval);
+        }
+        rebuild();
+    }
+
+    public synchronized void release(Reservation reservation) {
+        if (reservation.held() != null) {
+            pending.remove(reservation.held());
+        }
+    }
+
+    /**
+     * Bring the index up to date: incremental when a sync token is held, full otherwise.
+     */
+    void sync() throws Exception {
+        if (!clientManager.isReady()) return;
+
+        final Calendar service = clientManager.getService();
+        final String token;
+        final boolean windowLow;
+        synchronized (this) {
+            token = syncToken;
+            windowLow = System.currentTimeMillis() + horizon.toMillis() / 2 > windowEnd;
+        }
+
+        if (token == null || windowLow) {
+            fullSync(service);
+            return;
+        }
+        try {
+            incrementalSync(service, token);
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() != 410) throw e;
+            log.info("Calendar sync token expired, running a full sync");
+            fullSync(service);
+        }
+    }
+
+    private void fullSync(Calendar service) throws Exception {
+        final long start = System.nanoTime();
+        final long now = System.currentTimeMillis();
+        final long from = now - lookBehind.toMillis();
+        final long to = now + horizon.toMillis();
+
+        synchronized (this) {
+            fullSyncRunning = true;
+            committedDuringFullSync.clear();
+        }
+        try {
+            loadWindow(service, start, now, from, to);
+        } finally {
+            synchronized (this) {
+                fullSyncRunning = false;
+                committedDuringFullSync.clear();
+            }
+        }
+    }
+
+    /** Replace the index by the events listed in {@code [from, to)}. */
+    private void loadWindow(Calendar service, long start, long now, long from, long to) throws Exception {
+        Map<String, BusyInterval> loaded = new HashMap<>();
+        String pageToken = null;
+        String nextSyncToken;
+        do {
+            Events page = list(service.events().list("primary")
+                                      .setSingleEvents(true)
+                                      .setTimeMin(new DateTime(from))
+                                      .setTimeMax(new DateTime(to))
+                                      .setMaxResults(2500)
+                                      .setPageToken(pageToken));
+            for (Event event : page.getItems()) {
+                BusyInterval interval = toInterval(event);
+                if (interval != null) loaded.put(event.getId(), interval);
+            }
+            pageToken = page.getNextPageToken();
+            nextSyncToken = page.getNextSyncToken();
+        } while (pageToken != null);
+
+        synchronized (this) {
+            events.clear();
+            events.putAll(loaded);
+            // bookings inserted after the listing started may be missing from it
+            committedDuringFullSync.forEach(events::putIfAbsent);
+            syncToken = nextSyncToken;
+            windowStart = from;
+            windowEnd = to;
+            rebuild();
+        }
+        lastSyncMillis = now;
+        fullSyncs.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("Calendar busy index loaded {} events in {} ms", loaded.size(),
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void incrementalSync(Calendar service, String token) throws Exception {
+        final long start = System.nanoTime();
+        final long now = System.currentTimeMillis();
+
+        List<Event> changed = new ArrayList<>();
+        String pageToken = null;
+        String nextSyncToken;
+        do {
+            Events page = list(service.events().list("primary")
+                                      .setSingleEvents(true)
+                                      .setSyncToken(token)
+                                      .setPageToken(pageToken));
+            changed.addAll(page.getItems());
+            pageToken = page.getNextPageToken();
+            nextSyncToken = page.getNextSyncToken();
+        } while (pageToken != null);
+
+        synchronized (this) {
+            for (Event event : changed) {
+                BusyInterval interval = "cancelled".equals(event.getStatus()) ? null : toInterval(event);
+                BusyInterval previous = interval == null ? events.remove(event.getId()) : events.put(event.getId(), interval);
+                if (!sameSlot(previous, interval)) {
+                    // our own bookings come back here unchanged; anything else was edited elsewhere
+                    if (previous != null) recentChanges.add(new RecentChange(previous, now));
+                    if (interval != null) recentChanges.add(new RecentChange(interval, now));
+                }
+            }
+            syncToken = nextSyncToken;
+            if (!changed.isEmpty()) rebuild();
+        }
+        lastSyncMillis = now;
+        incrementalSyncs.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!changed.isEmpty()) {
+            log.debug("Calendar busy index applied {} changes", changed.size());
+        }
+    }
+
+    private Events list(Calendar.Events.List request) throws Exception {
+        Events page = metrics.timeUpstream("google-calendar", request::execute);
+        clientManager.recordSuccess();
+        return page;
+    }
+
+    /** Caller holds the lock. Also forgets changes older than {@code race-window}. */
+    private boolean nearRecentChange(long start, long end) {
+        long cutoff = System.currentTimeMillis() - raceWindow.toMillis();
+        recentChanges.removeIf(change -> change.seenAt() < cutoff);
+        // touching counts: a meeting that ends as ours starts is often moved by a few minutes
+        return recentChanges.stream().anyMatch(change -> change.interval().start() <= end && start <= change.interval().end());
+    }
+
+    private static boolean sameSlot(BusyInterval a, BusyInterval b) {
+        return a == null ? b == null : b != null && a.start() == b.start() && a.end() == b.end();
+    }
+
+    private boolean covers(long start, long end) {
+        return lastSyncMillis > 0
+               && System.currentTimeMillis() - lastSyncMillis <= maxStaleness.toMillis()
+               && start >= windowStart && end <= windowEnd;
+    }
+
+    /** Caller holds the lock. Drops events that ended before the synced window. */
+    private void rebuild() {
+        long cutoff = System.currentTimeMillis() - lookBehind.toMillis();
+        events.values().removeIf(interval -> interval.end() < cutoff);
+        snapshot = Snapshot.of(events.values());
+    }
+
+    /** Timed events use dateTime, all-day events only date; both carry epoch millis. */
+    private static BusyInterval toInterval(Event event) {
+        Long start = millis(event.getStart());
+        Long end = millis(event.getEnd());
+        if (start == null || end == null || end <= start) return null;
+        return new BusyInterval(event.getId(), event.getSummary(), start, end);
+    }
+
+    private static Long millis(EventDateTime time) {
+        if (time == null) return null;
+        DateTime value = time.getDateTime() != null ? time.getDateTime() : time.getDate();
+        return value != null ? value.getValue() : null;
+    }
+
+    /**
+     * Outcome of {@link #reserve}.
+     *
+     * @param held the slot held for this booking, null on a conflict
+     * @param conflict the known event or booking in progress that overlaps, null if the slot is free
+     * @param verify the index cannot vouch for the slot (not synced, stale, outside the window, or next to a
+     *               recent change made elsewhere); confirm with Google before inserting
+     */
+    public record Reservation(BusyInterval held, BusyInterval conflict, boolean verify) {}
+
+    private record RecentChange(BusyInterval interval, long seenAt) {}
+
+    /**
+     * Immutable view of the busy periods sorted by start, with the running maximum of their ends, so an
+     * overlap query is a binary search plus a short backwards scan.
+     */
+    private record Snapshot(BusyInterval[] byStart, long[] maxEnd) {
+        static Snapshot of(Collection<BusyInterval> intervals) {
+            BusyInterval[] sorted = intervals.toArray(new BusyInterval[0]);
+            Arrays.sort(sorted, Comparator.comparingLong(BusyInterval::start));
+            long[] maxEnd = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                maxEnd[i] = Math.max(sorted[i].end(), i > 0 ? maxEnd[i - 1] : Long.MIN_VALUE);
+            }
+            return new Snapshot(sorted, maxEnd);
+        }
+
+        BusyInterval firstOverlap(long start, long end) {
+            // last interval starting before the end of the query
+            int low = 0;
+            int high = byStart.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (byStart[mid].start() < end) low = mid + 1;
+                else high = mid;
+            }
+            for (int i = low - 1; i >= 0 && maxEnd[i] > start; i--) {
+                if (byStart[i].end() > start) return byStart[i];
+            }
+            return null;
+        }
+    }
+}
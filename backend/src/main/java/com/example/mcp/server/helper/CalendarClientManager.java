@@ -0,0 +1,212 @@
+package com.example.mcp.server.helper;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import com.google.api.client.auth.oauth2.Credential;
+import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
+import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
+import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.util.store.FileDataStoreFactory;
+import com.google.api.services.calendar.Calendar;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Owns the Google Calendar client for the lifetime of the application: one HTTP transport (and its
+ * keep-alive connection cache), client secrets parsed once, one OAuth flow and credential, and one
+ * {@link Calendar} instance shared by all bookings. The access token is refreshed in the background
+ * before it expires so bookings don't pay for a token round trip.
+ */
+@Slf4j
+@Component
+public class CalendarClientManager {
+    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
+    private static final List<String> SCOPES = List.of("https://www.googleapis.com/auth/calendar");
+    private static final String USER_ID = "user";
+
+    @Value("${google.credentials.path:credentials.json}")
+    private String credentialsFilePath;
+
+    @Value("${google.tokens.path:tokens}")
+    private String tokensPath;
+
+    @Value("${google.calendar.warmup:true}")
+    private boolean warmup;
+
+    @Value("${google.calendar.refresh-before-expiry:5m}")
+    private Duration refreshBeforeExpiry;
+
+    @Value("${google.calendar.refresh-check-interval:1m}")
+    private Duration refreshCheckInterval;
+
+    /** Calendar API base URL; point it at a local stub to run bookings offline. Empty = Google. */
+    @Value("${google.calendar.root-url:}")
+    private String rootUrl;
+
+    private NetHttpTransport transport;
+    private GoogleAuthorizationCodeFlow flow;
+    private volatile Credential credential;
+    private volatile Calendar service;
+    private Disposable refresher;
+
+    @Getter
+    private volatile Instant lastRefresh;
+    @Getter
+    private volatile Exception lastError;
+
+    /**
+     * The shared Calendar client. The first call runs the interactive OAuth consent flow if no token
+     * has been stored yet; later calls return the same instance.
+     */
+    public Calendar getService() throws Exception {
+        Calendar current = service;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (service == null) {
+                Credential authorized = new AuthCodeApp(flow()).authorize(USER_ID);
+                service = buildService(authorized);
+            }
+            return service;
+        }
+    }
+
+    /**
+     * A Calendar call went through, so an earlier failure no longer says anything about the client;
+     * without this one transient error would keep the health check down until the next token refresh.
+     */
+    public void recordSuccess() {
+        if (lastError != null) {
+            lastError = null;
+        }
+    }
+
+    public boolean isReady() {
+        return service != null;
+    }
+
+    /**
+     * Seconds until the current access token expires, or null if there is no credential yet.
+     */
+    public Long tokenExpiresInSeconds() {
+        Credential current = credential;
+        return current != null ? current.getExpiresInSeconds() : null;
+    }
+
+    /**
+     * Load a previously stored credential and open the first connection, so the first booking after
+     * startup doesn't pay for secrets parsing, token refresh and the TLS handshake. Never prompts:
+     * without a stored token the consent flow runs on the first booking as before.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmup) return;
+
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                synchronized (this) {
+                    if (service == null) {
+                        Credential stored = flow().loadCredential(USER_ID);
+                        if (stored == null) {
+                            log.info("No stored Google token yet; OAuth consent will run on the first booking");
+                            return;
+                        }
+                        service = buildService(stored);
+                    }
+                }
+                refreshIfExpiring();
+                service.calendars().get("primary").execute();
+                lastError = null;
+                log.info("Google Calendar client warmed up");
+            } catch (Exception e) {
+                lastError = e;
+                log.warn("Google Calendar warm-up failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() throws Exception {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+        if (transport != null) {
+            transport.shutdown();
+        }
+    }
+
+    private synchronized GoogleAuthorizationCodeFlow flow() throws Exception {
+        if (flow == null) {
+            transport = GoogleNetHttpTransport.newTrustedTransport();
+
+            final GoogleClientSecrets clientSecrets;
+            try (InputStreamReader reader = new InputStreamReader(new FileInputStream(credentialsFilePath))) {
+                clientSecrets = GoogleClientSecrets.load(JSON_FACTORY, reader);
+            }
+
+            flow = new GoogleAuthorizationCodeFlow.Builder(transport, JSON_FACTORY, clientSecrets, SCOPES)
+                    .setDataStoreFactory(new FileDataStoreFactory(Paths.get(tokensPath).toFile()))
+                    .setAccessType("offline")
+                    .build();
+        }
+        return flow;
+    }
+
+    private Calendar buildService(Credential authorized) {
+        credential = authorized;
+        lastError = null;
+        startRefresher();
+        Calendar.Builder builder = new Calendar.Builder(transport, JSON_FACTORY, authorized)
+                .setApplicationName("MCP Calendar");
+        if (rootUrl != null && !rootUrl.isBlank()) {
+            builder.setRootUrl(rootUrl.endsWith("/") ? rootUrl : rootUrl + "/");
+        }
+        return builder.build();
+    }
+
+    private void startRefresher() {
+        if (refresher != null) return;
+
+        refresher = Flux.interval(refreshCheckInterval, Schedulers.boundedElastic())
+                        .subscribe(tick -> {
+                            try {
+                                refreshIfExpiring();
+                            } catch (Exception e) {
+                                lastError = e;
+                                log.warn("Proactive Google token refresh failed: {}", e.getMessage());
+                            }
+                        });
+    }
+
+    private void refreshIfExpiring() throws Exception {
+        Credential current = credential;
+        if (current == null) return;
+
+        Long expiresIn = current.getExpiresInSeconds();
+        if (expiresIn == null || expiresIn <= refreshBeforeExpiry.toSeconds()) {
+            if (current.refreshToken()) {
+                lastRefresh = Instant.now();
+                lastError = null;
+                log.debug("Refreshed Google access token ahead of expiry");
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.mcp.server.helper;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the state of the shared Google Calendar client under {@code /actuator/health} as "calendar".
+ */
+@Component
+public class CalendarHealthIndicator implements HealthIndicator {
+    private final CalendarClientManager clientManager;
+
+    public CalendarHealthIndicator(CalendarClientManager clientManager) {
+        this.clientManager = clientManager;
+    }
+
+    @Override
+    public Health health() {
+        Exception lastError = clientManager.getLastError();
+        if (lastError != null) {
+            return Health.down(lastError).build();
+        }
+
+        if (!clientManager.isReady()) {
+            return Health.unknown().withDetail("reason", "not authorized yet").build();
+        }
+
+        Long expiresIn = clientManager.tokenExpiresInSeconds();
+        Health.Builder health = expiresIn != null && expiresIn > 0 ? Health.up() : Health.down();
+        if (expiresIn != null) {
+            health.withDetail("tokenExpiresInSeconds", expiresIn);
+        }
+        if (clientManager.getLastRefresh() != null) {
+            health.withDetail("lastRefresh", clientManager.getLastRefresh().toString());
+        }
+        return health.build();
+    }
+}
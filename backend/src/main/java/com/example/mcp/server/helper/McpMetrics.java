@@ -0,0 +1,281 @@
+package com.example.mcp.server.helper;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.example.mcp.server.model.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Per-stage meters of the {@code /mcp} pipeline: routing, response parsing, tool execution, the
+ * streamed answer and the upstream HTTP calls. Tags are limited to {@code tool}, {@code route},
+ * {@code upstream}, {@code outcome} and the configured routing {@code model}s, whose values come from
+ * small fixed sets, so the series count stays bounded.
+ */
+@Component
+public class McpMetrics {
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+    public static final String TIMEOUT = "timeout";
+    public static final String FALLBACK = "fallback";
+    public static final String CANCELLED = "cancelled";
+
+    /** Tool call started its own execution. */
+    public static final String STARTED = "started";
+    /** Tool call shared the execution of an identical call already running. */
+    public static final String JOINED = "joined";
+    /** Tool call that never shares, because the tool opted out of single-flight. */
+    public static final String EXCLUSIVE = "exclusive";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    /** Meters by name and tag values, so the hot path skips the builder and registry lookup. */
+    private final Map<String, Meter> meters = new ConcurrentHashMap<>();
+
+    public McpMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Record how long it took to pick a tool.
+     *
+     * @param route fastpath, cache or llm
+     * @param startNanos {@link System#nanoTime()} when routing started
+     */
+    public void recordRouting(String route, String outcome, long startNanos) {
+        timer("mcp.routing.latency", "Time to decide which tool answers a prompt", "route", route, "outcome", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record one pass of the LLM response parser.
+     *
+     * @param outcome success when a decision object was bound, fallback when the text became the answer
+     */
+    public void recordParse(String outcome, long startNanos) {
+        timer("mcp.llm.parse", "Time to turn the router's reply into a tool decision", "outcome", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the token usage a routing completion reported.
+     *
+     * @param call tool, plan or batch
+     */
+    public void recordUsage(String call, String model, TokenUsage usage) {
+        tokens(call, model, "prompt").record(usage.promptTokens());
+        tokens(call, model, "cached").record(usage.cachedPromptTokens());
+        tokens(call, model, "completion").record(usage.completionTokens());
+    }
+
+    private DistributionSummary tokens(String call, String model, String type) {
+        String[] tags = {"call", call, "model", model, "type", type};
+        return (DistributionSummary) meters.computeIfAbsent(key("mcp.llm.tokens", tags), key ->
+                DistributionSummary.builder("mcp.llm.tokens")
+                                   .description("Tokens per routing completion; cached is the part of prompt served from the provider's cache")
+                                   .baseUnit("tokens")
+                                   .tags(tags)
+                                   .register(meterRegistry));
+    }
+
+    /**
+     * Count a router reply that carried no usable decision.
+     *
+     * @param reason empty, provider_error, no_json or unreadable
+     */
+    public void parseFallback(String reason) {
+        counter("mcp.llm.parse.fallbacks", "reason", reason).increment();
+    }
+
+    /**
+     * Count a tool call rejected before invocation.
+     *
+     * @param reason missing or invalid
+     */
+    public void argumentsRejected(String tool, String reason) {
+        counter("mcp.tool.arguments.rejected", "tool", tool, "reason", reason).increment();
+    }
+
+    /**
+     * Count a tool call by how it was executed; joined / (started + joined) is the collapse ratio.
+     *
+     * @param flight started, joined or exclusive
+     */
+    public void toolCall(String tool, String flight) {
+        counter("mcp.tool.calls", "tool", tool, "flight", flight).increment();
+    }
+
+    /**
+     * Publish the number of tool executions currently shared through {@code flights}.
+     */
+    public void registerFlights(SingleFlight<?> flights) {
+        Gauge.builder("mcp.tool.flights", flights, SingleFlight::size)
+             .description("Tool executions in flight that identical calls can join")
+             .register(meterRegistry);
+    }
+
+    /**
+     * Time a tool's output from subscription until it completes, and count it as in flight meanwhile.
+     * Tools signal failures as errors ({@link ToolFailureException}), so the outcome tag sees them.
+     */
+    public Flux<String> timeTool(String tool, Flux<String> output) {
+        return Flux.defer(() -> {
+            AtomicInteger running = inFlight(tool);
+            running.incrementAndGet();
+            long start = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return output.doOnError(e -> {
+                             if (done.compareAndSet(false, true)) {
+                                 running.decrementAndGet();
+                                 recordTool(tool, outcomeOf(e), start);
+                             }
+                         })
+                         .doFinally(type -> {
+                             if (done.compareAndSet(false, true)) {
+                                 running.decrementAndGet();
+                                 recordTool(tool, type == SignalType.CANCEL ? CANCELLED : SUCCESS, start);
+                             }
+                         });
+        });
+    }
+
+    /**
+     * Time the answer stream of one request: time to the first chunk, and total duration until the
+     * stream ends. Both are measured from {@code startNanos}, when the prompt arrived.
+     */
+    public Flux<String> timeStream(String tool, long startNanos, Flux<String> output) {
+        return Flux.defer(() -> {
+            AtomicBoolean first = new AtomicBoolean(true);
+            AtomicBoolean done = new AtomicBoolean();
+            return output.doOnNext(chunk -> {
+                             if (first.compareAndSet(true, false)) {
+                                 timer("mcp.request.first-chunk", "Time from receiving a prompt to its first output chunk", "tool", tool)
+                                         .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                             }
+                         })
+                         .doOnError(e -> {
+                             if (done.compareAndSet(false, true)) {
+                                 recordStream(tool, outcomeOf(e), startNanos);
+                             }
+                         })
+                         .doFinally(type -> {
+                             if (done.compareAndSet(false, true)) {
+                                 recordStream(tool, type == SignalType.CANCEL ? CANCELLED : SUCCESS, startNanos);
+                             }
+                         });
+        });
+    }
+
+    /**
+     * Filter timing every exchange of a WebClient until its response status arrives.
+     *
+     * @param upstream short name of the remote API, e.g. openrouter
+     */
+    public ExchangeFilterFunction upstream(String upstream) {
+        return (request, next) -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean done = new AtomicBoolean();
+            return next.exchange(request)
+                       .doOnNext(response -> {
+                           done.set(true);
+                           recordUpstream(upstream, response.statusCode().isError() ? ERROR : SUCCESS, start);
+                       })
+                       .doOnError(e -> {
+                           done.set(true);
+                           recordUpstream(upstream, outcomeOf(e), start);
+                       })
+                       .doOnCancel(() -> {
+                           if (!done.get()) {
+                               recordUpstream(upstream, CANCELLED, start);
+                           }
+                       });
+        });
+    }
+
+    /**
+     * Time a synchronous upstream call, e.g. through the Google API client.
+     */
+    public <T> T timeUpstream(String upstream, Callable<T> call) throws Exception {
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            recordUpstream(upstream, SUCCESS, start);
+            return result;
+        } catch (Exception e) {
+            recordUpstream(upstream, outcomeOf(e), start);
+            throw e;
+        }
+    }
+
+    /**
+     * Map a failure to an outcome tag: timeout if a timeout caused it, error otherwise.
+     */
+    public static String outcomeOf(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException || t.getClass().getSimpleName().contains("Timeout")) {
+                return TIMEOUT;
+            }
+        }
+        return ERROR;
+    }
+
+    private AtomicInteger inFlight(String tool) {
+        return inFlight.computeIfAbsent(tool, name -> {
+            AtomicInteger gauge = new AtomicInteger();
+            Gauge.builder("mcp.tool.in-flight", gauge, AtomicInteger::get)
+                 .description("Tool calls currently producing output")
+                 .tags("tool", name)
+                 .register(meterRegistry);
+            return gauge;
+        });
+    }
+
+    private void recordTool(String tool, String outcome, long startNanos) {
+        timer("mcp.tool.duration", "Time a tool takes to produce its complete output", "tool", tool, "outcome", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordStream(String tool, String outcome, long startNanos) {
+        timer("mcp.request.duration", "Time from receiving a prompt until its answer stream ends", "tool", tool, "outcome", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordUpstream(String upstream, String outcome, long startNanos) {
+        timer("mcp.upstream.latency", "Time until an upstream API answers", "upstream", upstream, "outcome", outcome)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String description, String... tags) {
+        return (Timer) meters.computeIfAbsent(key(name, tags), key ->
+                Timer.builder(name).description(description).tags(tags).register(meterRegistry));
+    }
+
+    private Counter counter(String name, String... tags) {
+        return (Counter) meters.computeIfAbsent(key(name, tags), key ->
+                Counter.builder(name).tags(tags).register(meterRegistry));
+    }
+
+    /** Name and tag values; tag keys are fixed per name, so the values tell series apart. */
+    private static String key(String name, String[] tags) {
+        StringBuilder key = new StringBuilder(name);
+        for (int i = 1; i < tags.length; i += 2) {
+            key.append('\u0000').append(tags[i]);
+        }
+        return key.toString();
+    }
+}
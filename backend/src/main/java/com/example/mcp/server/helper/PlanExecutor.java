@@ -0,0 +1,145 @@
+package com.example.mcp.server.helper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.mcp.server.model.PlanStep;
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolPlan;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Runs a {@link ToolPlan}. All steps start at once, except that a step waits for the steps it depends
+ * on. Their output is merged in plan order, one section per step: the first section streams live, and
+ * later ones are buffered while they run and flushed as soon as the sections before them are done. The
+ * whole answer therefore takes about as long as the slowest dependency chain.
+ */
+@Slf4j
+@Component
+public class PlanExecutor {
+    private final ToolInvoker toolInvoker;
+
+    @Value("${mcp.plan.max-steps:5}")
+    private int maxSteps;
+
+    public PlanExecutor(ToolInvoker toolInvoker) {
+        this.toolInvoker = toolInvoker;
+    }
+
+    public Flux<String> execute(ToolPlan plan) {
+        List<PlanStep> steps = plan.steps();
+        if (steps.size() == 1) {
+            return run(steps.get(0).decision());
+        }
+        if (steps.size() > maxSteps) {
+            log.warn("Plan has {} steps, running the first {}", steps.size(), maxSteps);
+            steps = steps.subList(0, maxSteps);
+        }
+
+        Map<String, PlanStep> byId = new LinkedHashMap<>();
+        for (PlanStep step : steps) {
+            if (byId.putIfAbsent(step.id(), step) != null) {
+                log.warn("Duplicate plan step id '{}', running it once", step.id());
+            }
+        }
+        Map<String, List<String>> dependencies = dependencies(byId);
+        log.info("Executing plan with {} steps: {}", byId.size(), dependencies);
+
+        Map<String, Sinks.Empty<Void>> finished = new HashMap<>();
+        byId.keySet().forEach(id -> finished.put(id, Sinks.empty()));
+
+        List<Flux<String>> sections = new ArrayList<>(byId.size());
+        for (PlanStep step : byId.values()) {
+            Mono<Void> ready = Mono.when(dependencies.get(step.id()).stream()
+                                                     .map(id -> finished.get(id).asMono())
+                                                     .toList());
+            Sinks.Empty<Void> done = finished.get(step.id());
+            sections.add(ready.thenMany(section(step.decision()))
+                              .doFinally(signal -> done.tryEmitEmpty()));
+        }
+
+        // subscribe to every section up front so independent steps overlap, emit them in plan order
+        return Flux.mergeSequential(sections, sections.size(), 32);
+    }
+
+    /**
+     * Output of a single decision: the tool's stream, or the router's direct answer.
+     */
+    public Flux<String> run(ToolDecision decision) {
+        if (decision.toolName() == null) {
+            Object answer = decision.arguments().get("answer");
+            log.info("LLM returned direct answer: {}", answer);
+
+            return Flux.just("Answer: " + (answer != null ? answer.toString() : "null"));
+        }
+
+        log.info("Delegating to ToolInvoker for tool: {}", decision.toolName());
+        return toolInvoker.invokeTool(decision.toolName(), decision.arguments());
+    }
+
+    /**
+     * Tag value for request metrics: the tool of a one-step plan, {@code plan} otherwise.
+     */
+    public String metricsTag(ToolPlan plan) {
+        return plan.steps().size() == 1 ? toolInvoker.metricsTag(plan.steps().get(0).decision().toolName()) : "plan";
+    }
+
+    private Flux<String> section(ToolDecision decision) {
+        String title = decision.toolName() != null ? decision.toolName() : "answer";
+        return Flux.just("### " + title + "\n")
+                   .concatWith(run(decision))
+                   .concatWith(Flux.just("\n\n"));
+    }
+
+    /**
+     * Declared dependencies, restricted to steps of the plan. If they form a cycle the plan is run one
+     * step after the other in its declared order instead.
+     */
+    private static Map<String, List<String>> dependencies(Map<String, PlanStep> byId) {
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (PlanStep step : byId.values()) {
+            List<String> known = step.dependsOn().stream()
+                                     .filter(id -> byId.containsKey(id) && !id.equals(step.id()))
+                                     .distinct()
+                                     .toList();
+            if (known.size() < step.dependsOn().size()) {
+                log.warn("Step '{}' depends on unknown steps, ignoring them: {}", step.id(), step.dependsOn());
+            }
+            dependencies.put(step.id(), known);
+        }
+
+        Set<String> done = new HashSet<>();
+        for (String id : dependencies.keySet()) {
+            if (hasCycle(id, dependencies, done, new HashSet<>())) {
+                log.warn("Plan dependencies form a cycle, running steps sequentially");
+                List<String> ids = new ArrayList<>(dependencies.keySet());
+                for (int i = 0; i < ids.size(); i++) {
+                    dependencies.put(ids.get(i), i == 0 ? List.of() : List.of(ids.get(i - 1)));
+                }
+                break;
+            }
+        }
+        return dependencies;
+    }
+
+    private static boolean hasCycle(String id, Map<String, List<String>> dependencies, Set<String> done, Set<String> path) {
+        if (done.contains(id)) return false;
+        if (!path.add(id)) return true;
+        for (String dependency : dependencies.get(id)) {
+            if (hasCycle(dependency, dependencies, done, path)) return true;
+        }
+        path.remove(id);
+        done.add(id);
+        return false;
+    }
+}
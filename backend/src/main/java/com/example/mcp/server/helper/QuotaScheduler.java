@@ -0,0 +1,293 @@
+package com.example.mcp.server.helper;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.mcp.server.model.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Keeps outbound calls within each upstream credential's quota. Every upstream with
+ * {@code mcp.upstream.<name>.quota.per-minute} set gets a token bucket of that rate; calls take a token
+ * before they are sent and otherwise wait in a queue ordered by {@link RequestPriority}, FIFO within a
+ * priority. A call that would wait longer than {@code quota.max-wait} fails with
+ * {@link UpstreamQuotaException} instead.
+ * <p>
+ * The bucket follows the upstream's own view: a 429 pauses it until {@code Retry-After}, and
+ * {@code X-RateLimit-Remaining: 0} pauses it until {@code X-RateLimit-Reset}. A call that got a 429 is sent
+ * again once, after the pause, if its deadline allows.
+ */
+@Slf4j
+@Component
+public class QuotaScheduler {
+    /** Request attribute carrying the {@link RequestPriority} of a call; unset means INTERACTIVE. */
+    public static final String PRIORITY_ATTRIBUTE = QuotaScheduler.class.getName() + ".priority";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public QuotaScheduler(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Filter applying the quota of {@code upstream}, or a pass-through filter if it has none.
+     */
+    public ExchangeFilterFunction filter(String upstream) {
+        int perMinute = environment.getProperty("mcp.upstream." + upstream + ".quota.per-minute", Integer.class, 0);
+        if (perMinute <= 0) {
+            return (request, next) -> next.exchange(request);
+        }
+        Bucket bucket = buckets.computeIfAbsent(upstream, name -> new Bucket(name, perMinute));
+
+        return (request, next) -> {
+            RequestPriority priority = request.attribute(PRIORITY_ATTRIBUTE)
+                                              .map(RequestPriority.class::cast)
+                                              .orElse(RequestPriority.INTERACTIVE);
+            long deadline = System.nanoTime() + bucket.maxWait.toNanos();
+            return bucket.acquire(priority, deadline)
+                         .then(Mono.defer(() -> next.exchange(request)))
+                         .flatMap(response -> {
+                             bucket.observe(response);
+                             if (response.statusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()
+                                 || !bucket.retryThrottled || System.nanoTime() >= deadline) {
+                                 return Mono.just(response);
+                             }
+                             // the pause set by observe() delays this until the upstream accepts calls again
+                             return response.releaseBody()
+                                            .then(bucket.acquire(priority, deadline))
+                                            .then(Mono.defer(() -> next.exchange(request)))
+                                            .doOnNext(bucket::observe);
+                         });
+        };
+    }
+
+    /**
+     * Whether a call to {@code upstream} made now would have to wait for quota: calls are queued, the
+     * upstream paused us, or the bucket is empty. Always false for upstreams without a quota.
+     */
+    public boolean isSaturated(String upstream) {
+        Bucket bucket = buckets.get(upstream);
+        return bucket != null && bucket.saturated();
+    }
+
+    private final class Bucket {
+        private final String upstream;
+        private final double capacity;
+        private final double tokensPerNano;
+        private final Duration maxWait;
+        private final boolean retryThrottled;
+
+        // guarded by this
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        private long pausedUntil;
+        private long sequence;
+        private Disposable drainTask;
+        private long drainAt = Long.MAX_VALUE;
+        private final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+                Comparator.comparing(Ticket::priority).thenComparingLong(Ticket::sequence));
+
+        private final Counter rejected;
+        private final Counter throttled;
+        private final Map<RequestPriority, Timer> waits = new EnumMap<>(RequestPriority.class);
+        private final AtomicLong queued = new AtomicLong();
+
+        private Bucket(String upstream, int perMinute) {
+            this.upstream = upstream;
+            String prefix = "mcp.upstream." + upstream + ".quota.";
+            this.capacity = environment.getProperty(prefix + "burst", Integer.class, Math.max(1, perMinute / 6));
+            this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.maxWait = environment.getProperty(prefix + "max-wait", Duration.class, Duration.ofSeconds(10));
+            this.retryThrottled = environment.getProperty(prefix + "retry-throttled", Boolean.class, true);
+            this.tokens = capacity;
+
+            this.rejected = Counter.builder("mcp.upstream.quota.rejected").tag("upstream", upstream).register(meterRegistry);
+            this.throttled = Counter.builder("mcp.upstream.quota.throttled")
+                                    .description("429 answers received despite the local quota")
+                                    .tag("upstream", upstream)
+                                    .register(meterRegistry);
+            Gauge.builder("mcp.upstream.quota.queued", queued, AtomicLong::get).tag("upstream", upstream).register(meterRegistry);
+            for (RequestPriority priority : RequestPriority.values()) {
+                waits.put(priority, Timer.builder("mcp.upstream.quota.wait")
+                                         .tags("upstream", upstream, "priority", priority.name().toLowerCase())
+                                         .register(meterRegistry));
+            }
+            log.info("Upstream '{}' quota: {} calls/min, burst {}", upstream, perMinute, (int) capacity);
+        }
+
+        synchronized boolean saturated() {
+            long now = System.nanoTime();
+            refill(now);
+            return !queue.isEmpty() || now < pausedUntil || tokens < 1;
+        }
+
+        Mono<Void> acquire(RequestPriority priority, long deadline) {
+            return Mono.create(sink -> {
+                long now = System.nanoTime();
+                Ticket ticket;
+                synchronized (this) {
+                    refill(now);
+                    if (queue.isEmpty() && now >= pausedUntil && tokens >= 1) {
+                        tokens -= 1;
+                        ticket = null;
+                    } else {
+                        ticket = new Ticket(priority, sequence++, now, sink);
+                        queue.add(ticket);
+                        queued.incrementAndGet();
+                        scheduleDrain(now);
+                    }
+                }
+                if (ticket == null) {
+                    sink.success();
+                    return;
+                }
+
+                Disposable expiry = Schedulers.parallel().schedule(() -> expire(ticket),
+                                                                   Math.max(0, deadline - now), TimeUnit.NANOSECONDS);
+                sink.onDispose(() -> {
+                    expiry.dispose();
+                    remove(ticket);
+                });
+            });
+        }
+
+        /**
+         * Adjust to what the upstream reports about its limit.
+         */
+        void observe(ClientResponse response) {
+            HttpHeaders headers = response.headers().asHttpHeaders();
+            long now = System.nanoTime();
+            long pauseNanos = 0;
+            if (response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                throttled.increment();
+                pauseNanos = retryAfterNanos(headers.getFirst(HttpHeaders.RETRY_AFTER), Duration.ofSeconds(1).toNanos());
+            } else if ("0".equals(headers.getFirst("X-RateLimit-Remaining"))) {
+                pauseNanos = resetNanos(headers.getFirst("X-RateLimit-Reset"));
+            }
+            if (pauseNanos <= 0) {
+                return;
+            }
+
+            synchronized (this) {
+                long until = now + pauseNanos;
+                if (until > pausedUntil) {
+                    pausedUntil = until;
+                    tokens = 0;
+                    log.warn("Upstream '{}' is rate limiting, pausing calls for {} ms", upstream,
+                             TimeUnit.NANOSECONDS.toMillis(pauseNanos));
+                }
+                scheduleDrain(now);
+            }
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+
+        /** Arrange a drain for when the next queued call can go: after the pause and once a token is back. */
+        private void scheduleDrain(long now) {
+            if (queue.isEmpty()) return;
+            long tokenAt = tokens >= 1 ? now : now + (long) Math.ceil((1 - tokens) / tokensPerNano);
+            long at = Math.max(tokenAt, pausedUntil);
+            if (drainTask != null && !drainTask.isDisposed() && drainAt <= at) return;
+            if (drainTask != null) drainTask.dispose();
+            drainAt = at;
+            drainTask = Schedulers.parallel().schedule(this::drain, Math.max(0, at - now), TimeUnit.NANOSECONDS);
+        }
+
+        private void drain() {
+            List<Ticket> granted = new ArrayList<>();
+            synchronized (this) {
+                long now = System.nanoTime();
+                drainAt = Long.MAX_VALUE;
+                refill(now);
+                while (now >= pausedUntil && tokens >= 1 && !queue.isEmpty()) {
+                    tokens -= 1;
+                    granted.add(queue.poll());
+                    queued.decrementAndGet();
+                }
+                scheduleDrain(now);
+            }
+            for (Ticket ticket : granted) {
+                waits.get(ticket.priority()).record(System.nanoTime() - ticket.enqueuedAt(), TimeUnit.NANOSECONDS);
+                ticket.sink().success();
+            }
+        }
+
+        private void expire(Ticket ticket) {
+            synchronized (this) {
+                if (!queue.remove(ticket)) return;
+                queued.decrementAndGet();
+            }
+            rejected.increment();
+            ticket.sink().error(new UpstreamQuotaException(upstream + " quota exhausted, gave up after waiting "
+                                                           + maxWait.toSeconds() + "s"));
+        }
+
+        private void remove(Ticket ticket) {
+            synchronized (this) {
+                if (queue.remove(ticket)) {
+                    queued.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /** Retry-After is either delta-seconds or an HTTP date. */
+    static long retryAfterNanos(String value, long fallbackNanos) {
+        if (value == null || value.isBlank()) return fallbackNanos;
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, TimeUnit.MILLISECONDS.toNanos(at.toInstant().toEpochMilli() - System.currentTimeMillis()));
+            } catch (DateTimeParseException ignored) {
+                return fallbackNanos;
+            }
+        }
+    }
+
+    /** X-RateLimit-Reset as sent by OpenRouter: epoch milliseconds (epoch seconds are accepted too). */
+    static long resetNanos(String value) {
+        if (value == null || value.isBlank()) return 0;
+        try {
+            long reset = Long.parseLong(value.trim());
+            long resetMillis = reset < 10_000_000_000L ? reset * 1000 : reset;
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(resetMillis - System.currentTimeMillis()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private record Ticket(RequestPriority priority, long sequence, long enqueuedAt, MonoSink<Void> sink) {}
+}
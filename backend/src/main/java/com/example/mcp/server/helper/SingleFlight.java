@@ -0,0 +1,48 @@
+package com.example.mcp.server.helper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Collapses concurrent calls with the same key into one execution. The first caller starts the call;
+ * callers arriving while it runs share its output and get everything emitted so far replayed first.
+ * The execution is cancelled only when every caller has cancelled, and once it ends the next call with
+ * that key starts a fresh one; nothing is cached beyond the flight.
+ */
+public final class SingleFlight<T> {
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * Join the running flight for {@code key} or start one with {@code call}. Call this at subscription
+     * time (e.g. inside {@link Flux#defer}), not at assembly.
+     */
+    public Call<T> join(String key, Supplier<Flux<T>> call) {
+        Flight flight = new Flight(key, call);
+        Flight running = flights.putIfAbsent(key, flight);
+        return running != null ? new Call<>(running.output, true) : new Call<>(flight.output, false);
+    }
+
+    /** Number of flights currently running. */
+    public int size() {
+        return flights.size();
+    }
+
+    /**
+     * @param joined true if the output is shared with an earlier caller
+     */
+    public record Call<T>(Flux<T> output, boolean joined) {}
+
+    private final class Flight {
+        private final Flux<T> output;
+
+        private Flight(String key, Supplier<Flux<T>> call) {
+            this.output = Flux.defer(call)
+                              .doFinally(signal -> flights.remove(key, this))
+                              .replay()
+                              .refCount();
+        }
+    }
+}
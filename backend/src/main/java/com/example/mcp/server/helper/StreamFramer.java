@@ -0,0 +1,133 @@
+package com.example.mcp.server.helper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import com.example.mcp.server.model.FramingMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * Output framing stage between {@link ToolInvoker} and the HTTP response.
+ * Tools emit whole strings or real upstream chunks; this class merges them into frames bounded by
+ * a byte budget and a flush interval, without any artificial delay.
+ */
+@Slf4j
+@Component
+public class StreamFramer {
+    @Value("${mcp.stream.framing:typewriter}")
+    private String defaultMode;
+
+    @Value("${mcp.stream.typewriter.max-frame-bytes:32}")
+    private int typewriterFrameBytes;
+
+    @Value("${mcp.stream.typewriter.flush-interval-ms:15}")
+    private long typewriterFlushMs;
+
+    @Value("${mcp.stream.raw.max-frame-bytes:8192}")
+    private int rawFrameBytes;
+
+    @Value("${mcp.stream.raw.flush-interval-ms:50}")
+    private long rawFlushMs;
+
+    /**
+     * Resolve the framing mode requested by a client, falling back to the configured default.
+     */
+    public FramingMode resolveMode(String requested) {
+        String mode = requested == null || requested.isBlank() ? defaultMode : requested;
+        try {
+            return FramingMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown framing mode '{}', using {}", mode, defaultMode);
+            return FramingMode.valueOf(defaultMode.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Re-chunk tool output according to the given mode.
+     *
+     * @param source raw tool output
+     * @param mode framing mode
+     * @return Flux<String> of frames, each at most the mode's byte budget unless a single piece is larger
+     */
+    public Flux<String> frame(Flux<String> source, FramingMode mode) {
+        final int budget = mode == FramingMode.TYPEWRITER ? typewriterFrameBytes : rawFrameBytes;
+        final Duration flushInterval = Duration.ofMillis(mode == FramingMode.TYPEWRITER ? typewriterFlushMs : rawFlushMs);
+
+        Flux<String> pieces = mode == FramingMode.TYPEWRITER
+                ? source.concatMapIterable(StreamFramer::splitWords)
+                : source;
+
+        // every piece is at least one byte, so a buffer never needs more than `budget` pieces
+        return pieces.filter(piece -> !piece.isEmpty())
+                     .bufferTimeout(budget, flushInterval, true)
+                     .concatMapIterable(buffer -> pack(buffer, budget));
+    }
+
+    /**
+     * Split text after each whitespace run so words keep their trailing separator.
+     */
+    static List<String> splitWords(String text) {
+        List<String> words = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i - 1)) && !Character.isWhitespace(text.charAt(i))) {
+                words.add(text.substring(start, i));
+                start = i;
+            }
+        }
+        if (start < text.length()) {
+            words.add(text.substring(start));
+        }
+        return words;
+    }
+
+    /**
+     * Join consecutive pieces into frames that stay within the byte budget.
+     */
+    static List<String> pack(List<String> pieces, int budget) {
+        if (pieces.size() == 1) {
+            return pieces;
+        }
+
+        List<String> frames = new ArrayList<>();
+        StringBuilder frame = new StringBuilder();
+        int frameBytes = 0;
+        for (String piece : pieces) {
+            int pieceBytes = utf8Length(piece);
+            if (frameBytes > 0 && frameBytes + pieceBytes > budget) {
+                frames.add(frame.toString());
+                frame.setLength(0);
+                frameBytes = 0;
+            }
+            frame.append(piece);
+            frameBytes += pieceBytes;
+        }
+        if (frameBytes > 0) {
+            frames.add(frame.toString());
+        }
+        return frames;
+    }
+
+    private static int utf8Length(String s) {
+        int bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
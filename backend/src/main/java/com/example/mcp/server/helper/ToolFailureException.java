@@ -0,0 +1,11 @@
+package com.example.mcp.server.helper;
+
+/**
+ * A tool call that failed. The message is the text shown to the caller; {@link ToolInvoker} turns it
+ * into the tool's output once the call has been timed, so the failure still counts as one.
+ */
+public class ToolFailureException extends RuntimeException {
+    public ToolFailureException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -1,11 +1,11 @@
 package com.example.mcp.server.helper;
 
-import java.lang.reflect.Method;
 import java.util.Map;
 
 import com.example.mcp.server.model.ToolMethod;
 import com.example.mcp.server.tools.ToolRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
@@ -13,9 +13,38 @@ import reactor.core.publisher.Flux;
 @Component
 public class ToolInvoker {
     private final ToolRegistry toolRegistry;
+    private final BlockingToolScheduler blockingToolScheduler;
+    private final McpMetrics metrics;
+    private final SingleFlight<String> flights = new SingleFlight<>();
 
-    public ToolInvoker(ToolRegistry toolRegistry) {
+    /** Let identical concurrent calls of idempotent tools share one execution. */
+    @Value("${mcp.tools.single-flight.enabled:true}")
+    private boolean singleFlight;
+
+    public ToolInvoker(ToolRegistry toolRegistry, BlockingToolScheduler blockingToolScheduler, McpMetrics metrics) {
         this.toolRegistry = toolRegistry;
+        this.blockingToolScheduler = blockingToolScheduler;
+        this.metrics = metrics;
+        metrics.registerFlights(flights);
+    }
+
+    /**
+     * Whether identical calls of this tool may share one execution, see {@code ToolPolicy#idempotent()}.
+     */
+    public boolean isIdempotent(String toolName) {
+        ToolMethod toolMethod = toolRegistry.getTool(toolName);
+        return toolMethod != null && toolMethod.policy().idempotent();
+    }
+
+    /**
+     * Tag value for a routed tool name: the name itself if it is registered, {@code none} for a
+     * direct answer and {@code unknown} for anything the router made up.
+     */
+    public String metricsTag(String toolName) {
+        if (toolName == null) {
+            return "none";
+        }
+        return toolRegistry.getTool(toolName) != null ? toolName : "unknown";
     }
 
     /**
@@ -35,34 +64,34 @@ public class ToolInvoker {
         }
 
         try {
-            Method method = toolMethod.method();
-            Object bean = toolMethod.bean();
-
-            Object[] args = mapArguments(toolName, arguments);
-            if (args == null) {
-                return Flux.just("Could not map arguments for tool: " + toolName);
+            final Object[] args;
+            try {
+                args = toolMethod.bindArguments(arguments);
+            } catch (IllegalArgumentException e) {
+                log.warn("Could not map arguments for tool '{}': {}", toolName, e.getMessage());
+                metrics.argumentsRejected(toolName, "invalid");
+                return Flux.just("Could not map arguments for tool: " + toolName + " (" + e.getMessage() + ")");
             }
 
             // Check for missing args
-            for (int i = 0; i < args.length; i++) {
-                if (args[i] == null) {
-                    String paramName = method.getParameters()[i].getName();
-                    log.warn("Missing argument '{}' for tool '{}'", paramName, toolName);
-                    return Flux.just("Missing argument '" + paramName + "' for tool: " + toolName);
-                }
+            String missing = toolMethod.firstMissingArgument(args);
+            if (missing != null) {
+                log.warn("Missing argument '{}' for tool '{}'", missing, toolName);
+                metrics.argumentsRejected(toolName, "missing");
+                return Flux.just("Missing argument '" + missing + "' for tool: " + toolName);
             }
 
-            log.info("Invoking method {} on bean {}", method.getName(), bean.getClass().getSimpleName());
-            Object result = method.invoke(bean, args);
-
-            if (result instanceof Flux<?> fluxResult) {
-                return fluxResult.map(Object::toString);
-            } else if (result instanceof String str) {
-                return Flux.just(str);
-            } else {
-                log.warn("Tool '{}' returned unknown type: {}", toolName, result != null ? result.getClass() : null);
-                return Flux.just("Tool returned unknown type");
+            if (!singleFlight || !toolMethod.policy().idempotent()) {
+                metrics.toolCall(toolName, McpMetrics.EXCLUSIVE);
+                return execute(toolMethod, args);
             }
+            // concurrent calls with the same bound arguments share one execution and its output
+            String key = flightKey(toolName, args);
+            return Flux.defer(() -> {
+                SingleFlight.Call<String> call = flights.join(key, () -> execute(toolMethod, args));
+                metrics.toolCall(toolName, call.joined() ? McpMetrics.JOINED : McpMetrics.STARTED);
+                return call.output();
+            });
 
         } catch (Exception e) {
             log.error("Error invoking tool '{}'", toolName, e);
@@ -70,19 +99,55 @@ public class ToolInvoker {
         }
     }
 
+    private Flux<String> execute(ToolMethod toolMethod, Object[] args) {
+        final String toolName = toolMethod.name();
+        final Flux<String> output;
+        if (toolMethod.blocking()) {
+            // keep synchronous SDK calls off the event loop that completed the routing call
+            output = blockingToolScheduler.run(toolName, () -> toolMethod.invoke(args))
+                                          .flatMapMany(result -> toFlux(toolName, result));
+        } else {
+            output = Flux.defer(() -> {
+                try {
+                    return toFlux(toolName, toolMethod.invoke(args));
+                } catch (Exception e) {
+                    return Flux.error(e);
+                }
+            });
+        }
+
+        // failures become text only after timeTool has counted them
+        return metrics.timeTool(toolName, output)
+                      .onErrorResume(e -> {
+                          if (e instanceof ToolFailureException failure) {
+                              log.warn("Tool '{}' failed: {}", toolName, failure.getMessage());
+                              return Flux.just(failure.getMessage());
+                          }
+                          log.error("Error invoking tool '{}'", toolName, e);
+                          return Flux.just("Error invoking tool '" + toolName + "': " + e.getMessage());
+                      });
+    }
+
     /**
-     * Map arguments for specific tools.
+     * Tool name plus the bound arguments, so values that bind equally ("60" and 60) share a key.
      */
-    private Object[] mapArguments(String toolName, Map<String, Object> arguments) {
-        return switch (toolName) {
-            case "getWeather" -> new Object[]{arguments.get("city")};
-            case "askChat" -> new Object[]{arguments.get("prompt")};
-            case "bookEvent" -> {
-                Object durationObj = arguments.get("durationMin");
-                int duration = durationObj != null ? Integer.parseInt(durationObj.toString()) : 0;
-                yield new Object[]{arguments.get("title"), arguments.get("startIsoUtc"), duration};
-            }
-            default -> new Object[0];
-        };
+    private static String flightKey(String toolName, Object[] args) {
+        StringBuilder key = new StringBuilder(toolName);
+        for (Object arg : args) {
+            String value = String.valueOf(arg);
+            key.append('\u0000').append(value.length()).append(':').append(value);
+        }
+        return key.toString();
+    }
+
+    private Flux<String> toFlux(String toolName, Object result) {
+        if (result instanceof Flux<?> fluxResult) {
+            return fluxResult.map(Object::toString);
+        } else if (result instanceof String str) {
+            return Flux.just(str);
+        } else {
+            log.warn("Tool '{}' returned unknown type: {}", toolName, result != null ? result.getClass() : null);
+            return Flux.just("Tool returned unknown type");
+        }
     }
 }
@@ -0,0 +1,94 @@
+package com.example.mcp.server.helper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * One tuned Reactor Netty connection pool per upstream. Every WebClient talking to the same upstream
+ * shares its pool, so {@code LlmService} and {@code ChatTool} reuse the same OpenRouter connections.
+ * <p>
+ * Settings are read from {@code mcp.upstream.<name>.*}, falling back to {@code mcp.upstream.default.*}.
+ * Pool meters are published under {@code reactor.netty.connection.provider.*}, tagged with the pool name.
+ */
+@Slf4j
+@Component
+public class UpstreamClients {
+    private final WebClient.Builder builder;
+    private final McpMetrics metrics;
+    private final QuotaScheduler quotaScheduler;
+    private final Environment environment;
+    private final Map<String, HttpClient> httpClients = new ConcurrentHashMap<>();
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+
+    public UpstreamClients(WebClient.Builder builder, McpMetrics metrics, QuotaScheduler quotaScheduler,
+                           Environment environment) {
+        this.builder = builder;
+        this.metrics = metrics;
+        this.quotaScheduler = quotaScheduler;
+        this.environment = environment;
+    }
+
+    /**
+     * A fresh WebClient builder bound to the shared pool of {@code upstream}, kept within its quota by
+     * {@link QuotaScheduler} and timed by {@link McpMetrics#upstream(String)}.
+     *
+     * @param upstream short upstream name, e.g. openrouter
+     */
+    public WebClient.Builder builder(String upstream) {
+        HttpClient httpClient = httpClients.computeIfAbsent(upstream, this::createHttpClient);
+        return builder.clone()
+                      .clientConnector(new ReactorClientHttpConnector(httpClient))
+                      // outermost, so time spent waiting for quota is not counted as upstream latency
+                      .filter(quotaScheduler.filter(upstream))
+                      .filter(metrics.upstream(upstream));
+    }
+
+    private HttpClient createHttpClient(String upstream) {
+        ConnectionProvider provider = ConnectionProvider.builder("upstream-" + upstream)
+                .maxConnections(setting(upstream, "max-connections", Integer.class, 50))
+                .pendingAcquireMaxCount(setting(upstream, "pending-acquire-max", Integer.class, 500))
+                .pendingAcquireTimeout(setting(upstream, "pending-acquire-timeout", Duration.class, Duration.ofSeconds(5)))
+                // drop idle connections before the server or a load balancer does, so reuse never hits a dead socket
+                .maxIdleTime(setting(upstream, "max-idle-time", Duration.class, Duration.ofSeconds(30)))
+                .maxLifeTime(setting(upstream, "max-life-time", Duration.class, Duration.ofMinutes(5)))
+                .evictInBackground(setting(upstream, "evict-interval", Duration.class, Duration.ofSeconds(30)))
+                // hand out the most recently used connection so the hot set stays warm and the rest can expire
+                .lifo()
+                .metrics(true)
+                .build();
+        providers.put(upstream, provider);
+
+        boolean http2 = setting(upstream, "http2", Boolean.class, false);
+        Duration connectTimeout = setting(upstream, "connect-timeout", Duration.class, Duration.ofSeconds(5));
+        log.info("Upstream '{}' pool: max {} connections, http2={}", upstream,
+                 setting(upstream, "max-connections", Integer.class, 50), http2);
+
+        return HttpClient.create(provider)
+                         .protocol(http2 ? new HttpProtocol[]{HttpProtocol.H2, HttpProtocol.HTTP11}
+                                         : new HttpProtocol[]{HttpProtocol.HTTP11})
+                         .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                         .keepAlive(true);
+    }
+
+    private <T> T setting(String upstream, String key, Class<T> type, T defaultValue) {
+        T value = environment.getProperty("mcp.upstream." + upstream + "." + key, type);
+        return value != null ? value : environment.getProperty("mcp.upstream.default." + key, type, defaultValue);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+}
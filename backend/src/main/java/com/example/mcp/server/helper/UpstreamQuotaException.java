@@ -0,0 +1,11 @@
+package com.example.mcp.server.helper;
+
+/**
+ * An outbound call given up by {@link QuotaScheduler} because the upstream's quota would not free up
+ * within the configured wait.
+ */
+public class UpstreamQuotaException extends RuntimeException {
+    public UpstreamQuotaException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.mcp.server.model;
+
+/**
+ * One prompt of a batch request. {@code id} is echoed on its result; it defaults to the prompt's position.
+ */
+public record BatchPrompt(String id, String prompt) {}
@@ -0,0 +1,5 @@
+package com.example.mcp.server.model;
+
+import java.util.List;
+
+public record BatchRequest(List<BatchPrompt> prompts) {}
@@ -0,0 +1,8 @@
+package com.example.mcp.server.model;
+
+/**
+ * Complete output for one prompt of a batch, streamed as soon as its tool finishes.
+ *
+ * @param toolName the tool that produced the output, null for a direct answer
+ */
+public record BatchResult(String id, String toolName, String output) {}
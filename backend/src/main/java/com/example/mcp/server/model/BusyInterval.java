@@ -0,0 +1,13 @@
+package com.example.mcp.server.model;
+
+/**
+ * A busy period of the calendar, half-open {@code [start, end)} in epoch milliseconds.
+ *
+ * @param eventId Google event id, or a local id for a booking that is still being inserted
+ */
+public record BusyInterval(String eventId, String summary, long start, long end) {
+
+    public boolean overlaps(long otherStart, long otherEnd) {
+        return start < otherEnd && otherStart < end;
+    }
+}
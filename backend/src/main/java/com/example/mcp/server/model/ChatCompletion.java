@@ -0,0 +1,10 @@
+package com.example.mcp.server.model;
+
+/**
+ * The parts of a chat-completion response we actually use.
+ *
+ * @param content first non-blank assistant text, or null
+ * @param usage token usage, or null if the provider did not report it
+ * @param error provider error message for error envelopes, or null
+ */
+public record ChatCompletion(String content, TokenUsage usage, String error) {}
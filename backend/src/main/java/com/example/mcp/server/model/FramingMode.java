@@ -0,0 +1,11 @@
+package com.example.mcp.server.model;
+
+/**
+ * How tool output is cut into HTTP chunks before it reaches the client.
+ */
+public enum FramingMode {
+    /** Small, word-aligned frames so the UI can render the answer progressively. */
+    TYPEWRITER,
+    /** Large frames for API callers that only care about throughput. */
+    RAW
+}
@@ -0,0 +1,8 @@
+package com.example.mcp.server.model;
+
+import java.util.List;
+
+/**
+ * One tool call of a {@link ToolPlan}. It starts only after every step named in {@code dependsOn} has finished.
+ */
+public record PlanStep(String id, ToolDecision decision, List<String> dependsOn) {}
@@ -0,0 +1,13 @@
+package com.example.mcp.server.model;
+
+/**
+ * Order in which queued upstream calls get quota, highest first.
+ */
+public enum RequestPriority {
+    /** Tool routing: every user request waits on it. */
+    ROUTING,
+    /** Calls answering a user directly, e.g. askChat or a weather cache miss. */
+    INTERACTIVE,
+    /** Work nobody waits for, e.g. refreshing cached weather. */
+    BACKGROUND
+}
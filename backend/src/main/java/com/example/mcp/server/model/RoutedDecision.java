@@ -0,0 +1,8 @@
+package com.example.mcp.server.model;
+
+/**
+ * Routing decision for one prompt of a batch.
+ *
+ * @param index position of the prompt in the batch
+ */
+public record RoutedDecision(int index, ToolDecision decision) {}
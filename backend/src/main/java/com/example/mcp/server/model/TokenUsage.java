@@ -0,0 +1,8 @@
+package com.example.mcp.server.model;
+
+/**
+ * The {@code usage} block of a chat completion.
+ *
+ * @param cachedPromptTokens prompt tokens served from the provider's prompt cache, 0 if not reported
+ */
+public record TokenUsage(int promptTokens, int completionTokens, int totalTokens, int cachedPromptTokens) {}
@@ -1,4 +1,65 @@
 package com.example.mcp.server.model;
+
+import java.lang.invoke.MethodHandle;
 import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+import java.util.Map;
+
+import com.example.mcp.server.tools.ToolPolicy;
+
+/**
+ * A registered {@code @Tool} method, compiled once by the registry.
+ *
+ * @param description {@code @Tool} description, shown to the router
+ * @param blocking whether invocations run on the blocking-tool lane (from {@link ToolPolicy#blocking()}
+ *                 or the {@code mcp.tools.blocking.names} property)
+ * @param parameters parameters in declaration order, with their argument binders
+ * @param invoker handle bound to {@code bean} with the shape {@code (Object[]) -> Object}
+ */
+public record ToolMethod(String name,
+                         String description,
+                         Object bean,
+                         Method method,
+                         ToolPolicy policy,
+                         boolean blocking,
+                         List<ToolParameter> parameters,
+                         MethodHandle invoker) {
+
+    /**
+     * Bind router arguments to the method's parameters by name.
+     *
+     * @return positional arguments; null entries are missing required arguments
+     * @throws IllegalArgumentException if a value cannot be converted to the parameter type
+     */
+    public Object[] bindArguments(Map<String, Object> arguments) {
+        final Object[] args = new Object[parameters.size()];
+        for (int i = 0; i < args.length; i++) {
+            ToolParameter parameter = parameters.get(i);
+            args[i] = parameter.bind(arguments != null ? arguments.get(parameter.name()) : null);
+        }
+        return args;
+    }
+
+    /**
+     * @return the name of the first required parameter without a value, or null if none is missing
+     */
+    public String firstMissingArgument(Object[] args) {
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null && parameters.get(i).required()) {
+                return parameters.get(i).name();
+            }
+        }
+        return null;
+    }
 
-public record ToolMethod(Object bean, Method method) {}
\ No newline at end of file
+    public Object invoke(Object[] args) throws Exception {
+        try {
+            return (Object) invoker.invokeExact(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+}
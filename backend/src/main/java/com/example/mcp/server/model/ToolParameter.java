@@ -0,0 +1,40 @@
+package com.example.mcp.server.model;
+
+import java.util.function.Function;
+
+/**
+ * One parameter of a {@code @Tool} method, resolved once at registration.
+ *
+ * @param name parameter name as the router sends it in {@code arguments}
+ * @param type declared Java type
+ * @param required false when annotated {@code @ToolParam(required = false)}
+ * @param description {@code @ToolParam} description, empty if none
+ * @param coercer converts a JSON-ish value (String, Number, Boolean, Map...) to {@code type}
+ */
+public record ToolParameter(String name,
+                            Class<?> type,
+                            boolean required,
+                            String description,
+                            Function<Object, Object> coercer) {
+
+    /**
+     * Convert a raw argument value, returning null for a missing required value and the type's
+     * default for a missing optional primitive.
+     */
+    public Object bind(Object raw) {
+        if (raw != null) {
+            return coercer.apply(raw);
+        }
+        if (required || !type.isPrimitive()) {
+            return null;
+        }
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0d;
+        if (type == float.class) return 0f;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        return 0;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.mcp.server.model;
+
+import java.util.List;
+
+/**
+ * Tool calls the router chose for one prompt, in the order their output is shown.
+ */
+public record ToolPlan(List<PlanStep> steps) {
+    public static ToolPlan of(ToolDecision decision) {
+        return new ToolPlan(List.of(new PlanStep("step1", decision, List.of())));
+    }
+}
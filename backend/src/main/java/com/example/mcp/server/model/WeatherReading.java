@@ -0,0 +1,10 @@
+package com.example.mcp.server.model;
+
+import java.time.Instant;
+
+/**
+ * Current conditions for one city as returned by OpenWeather.
+ *
+ * @param cityId OpenWeather city id, used for multi-city group requests (0 when unknown)
+ */
+public record WeatherReading(String city, long cityId, double temperature, String description, Instant fetchedAt) {}
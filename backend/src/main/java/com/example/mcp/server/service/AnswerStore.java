@@ -0,0 +1,490 @@
+package com.example.mcp.server.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Disk-backed cache of {@code askChat} answers keyed by model and the prompt with case and whitespace
+ * folded (symbols kept, so "2+2" and "2-2" differ), kept across restarts.
+ * <p>
+ * {@code answers.log} is an append-only log and the only source of truth. Each record is
+ * {@code crc32, keyLength, valueLength, expiresAtMillis, key, value}. {@code answers.idx} is a
+ * memory-mapped open-addressing hash table of {@code (keyHash, logOffset)} slots. A lookup is one probe
+ * sequence in the mapped index plus one positional read of the log, so neither file is held on the heap.
+ * <p>
+ * Recovery: the index header records how much of the log it covers. On startup the records after that
+ * point are replayed into the index, and a torn or corrupt tail (CRC mismatch, short record) is cut off.
+ * An index that does not match the log is rebuilt from it. Compaction rewrites the live, unexpired
+ * records into a new log, newest kept when over the caps, and swaps it in with an atomic rename.
+ */
+@Slf4j
+@Component
+public class AnswerStore {
+    private static final long LOG_MAGIC = 0x4d4350414e533031L;   // "MCPANS01"
+    private static final long INDEX_MAGIC = 0x4d43504944583031L; // "MCPIDX01"
+    private static final int LOG_HEADER = Long.BYTES;
+    // index header: magic, slot count, 4 unused bytes, log length covered by the index, 8 reserved bytes
+    private static final int INDEX_HEADER = 32;
+    private static final int INDEX_COVERED = 16;
+    private static final int RECORD_HEADER = 3 * Integer.BYTES + Long.BYTES;
+    private static final int SLOT = 2 * Long.BYTES;
+    private static final long EMPTY = 0;
+    private static final int MAX_KEY_BYTES = 64 * 1024;
+    private static final int MAX_VALUE_BYTES = 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int slots;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    // replaced by compaction, guarded by lock
+    private FileChannel logFile;
+    private long logSize;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int liveEntries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter compactions;
+
+    public AnswerStore(MeterRegistry meterRegistry,
+                       @Value("${mcp.chat.store.enabled:true}") boolean enabled,
+                       @Value("${mcp.chat.store.path:answers}") String path,
+                       @Value("${mcp.chat.store.ttl:7d}") Duration ttl,
+                       @Value("${mcp.chat.store.max-entries:100000}") int maxEntries,
+                       @Value("${mcp.chat.store.max-bytes:256MB}") DataSize maxBytes) {
+        this.enabled = enabled;
+        this.directory = Paths.get(path);
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes.toBytes();
+        // at most half full with live entries, so probe sequences stay short
+        this.slots = Integer.highestOneBit(Math.max(16, maxEntries) * 2 - 1) << 1;
+
+        this.hits = Counter.builder("mcp.chat.store.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("mcp.chat.store.requests").tag("result", "miss").register(meterRegistry);
+        this.compactions = Counter.builder("mcp.chat.store.compactions").register(meterRegistry);
+        Gauge.builder("mcp.chat.store.entries", this, s -> s.read(() -> s.liveEntries)).register(meterRegistry);
+        Gauge.builder("mcp.chat.store.bytes", this, s -> s.read(() -> s.logSize)).baseUnit("bytes").register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void open() {
+        if (!enabled) return;
+        lock.writeLock().lock();
+        try {
+            Files.createDirectories(directory);
+            openLog(directory.resolve("answers.log"));
+            recoverIndex();
+            log.info("Answer store at {}: {} answers, {} KiB", directory.toAbsolutePath(), liveEntries, logSize / 1024);
+        } catch (IOException e) {
+            log.error("Answer store at {} is unavailable, askChat answers will not be cached", directory, e);
+            closeQuietly();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    /**
+     * {@link #get} on a worker thread, so the disk read never runs on an event loop. Empty on a miss.
+     */
+    public Mono<String> lookup(String model, String prompt) {
+        if (!isEnabled()) return Mono.empty();
+        return Mono.fromCallable(() -> get(model, prompt))
+                   .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Cached answer for the prompt, or null. Blocks on the index lock and a log read, see {@link #lookup}
+     * for reactive callers. Never waits for a running compaction, that counts as a miss.
+     */
+    public String get(String model, String prompt) {
+        if (!isEnabled()) return null;
+
+        byte[] key = key(model, prompt);
+        boolean locked;
+        try {
+            locked = lock.readLock().tryLock(5, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            locked = false;
+        }
+        if (!locked) {
+            misses.increment();
+            return null;
+        }
+        try {
+            if (logFile == null) return null;
+            int slot = find(key, hash(key));
+            if (slot >= 0) {
+                Record record = readRecord(index.getLong(slotPosition(slot) + Long.BYTES), true);
+                if (record != null && record.expiresAt > System.currentTimeMillis()) {
+                    hits.increment();
+                    return new String(record.value, StandardCharsets.UTF_8);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Answer store read failed: {}", e.toString());
+        } finally {
+            lock.readLock().unlock();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Remember an answer. Runs on a worker thread, callers are not delayed by the disk write.
+     */
+    public void put(String model, String prompt, String answer) {
+        if (!isEnabled()) return;
+        byte[] key = key(model, prompt);
+        byte[] value = answer.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES || value.length > MAX_VALUE_BYTES) return;
+
+        Mono.fromRunnable(() -> append(key, value))
+            .subscribeOn(Schedulers.boundedElastic())
+            .subscribe(null, e -> log.warn("Could not store askChat answer: {}", e.toString()));
+    }
+
+    private void append(byte[] key, byte[] value) {
+        lock.writeLock().lock();
+        try {
+            if (logFile == null) return;
+            long offset = logSize;
+            ByteBuffer record = encode(key, value, System.currentTimeMillis() + ttlMillis);
+            while (record.hasRemaining()) {
+                logSize += logFile.write(record, logSize);
+            }
+            index(key, hash(key), offset);
+            index.putLong(INDEX_COVERED, logSize);
+        } catch (IOException e) {
+            log.warn("Answer store write failed: {}", e.toString());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded() {
+        boolean needed = read(() -> logFile != null
+                                    && (logSize > maxBytes || liveEntries > maxEntries));
+        if (needed && compacting.compareAndSet(false, true)) {
+            Mono.fromRunnable(this::compact)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doFinally(signal -> compacting.set(false))
+                .subscribe(null, e -> log.error("Answer store compaction failed", e));
+        }
+    }
+
+    /**
+     * Rewrite the live records into a fresh log and index. When over the caps, only the newest records
+     * that fit into three quarters of them are kept.
+     */
+    void compact() {
+        lock.writeLock().lock();
+        try {
+            if (logFile == null) return;
+            long start = System.nanoTime();
+            long now = System.currentTimeMillis();
+
+            // live = the record the index points to for its key, and not expired; in log (= write) order
+            long[] live = new long[liveEntries];
+            int[] sizes = new int[liveEntries];
+            int count = 0;
+            for (long offset = LOG_HEADER; offset < logSize && count < live.length; ) {
+                Record record = readRecord(offset, false);
+                if (record == null) break;
+                int slot = find(record.key, hash(record.key));
+                if (slot >= 0 && index.getLong(slotPosition(slot) + Long.BYTES) == offset && record.expiresAt > now) {
+                    live[count] = offset;
+                    sizes[count] = record.size();
+                    count++;
+                }
+                offset += record.size();
+            }
+
+            int first = 0;
+            long keptBytes = Arrays.stream(sizes, 0, count).asLongStream().sum();
+            while (first < count && (keptBytes > maxBytes * 3 / 4 || count - first > maxEntries * 3 / 4)) {
+                keptBytes -= sizes[first++];
+            }
+
+            Path logPath = directory.resolve("answers.log");
+            Path compacted = directory.resolve("answers.log.compact");
+            try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                       StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer magic = ByteBuffer.allocate(LOG_HEADER).putLong(0, LOG_MAGIC);
+                target.write(magic, 0);
+                long position = LOG_HEADER;
+                for (int i = first; i < count; i++) {
+                    long copied = 0;
+                    while (copied < sizes[i]) {
+                        copied += logFile.transferTo(live[i] + copied, sizes[i] - copied, target.position(position + copied));
+                    }
+                    position += sizes[i];
+                }
+                target.force(true);
+            }
+
+            // a crash between these steps leaves either the old log or the new one, and no index to trust
+            long before = logSize;
+            closeQuietly();
+            Files.deleteIfExists(directory.resolve("answers.idx"));
+            Files.move(compacted, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            openLog(logPath);
+            recoverIndex();
+
+            compactions.increment();
+            log.info("Answer store compacted in {} ms: {} -> {} KiB, {} answers kept, {} dropped over the caps",
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), before / 1024, logSize / 1024,
+                     count - first, first);
+        } catch (IOException e) {
+            log.error("Answer store compaction failed, disabling the store", e);
+            closeQuietly();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void openLog(Path path) throws IOException {
+        logFile = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer magic = ByteBuffer.allocate(LOG_HEADER);
+        if (logFile.size() >= LOG_HEADER) {
+            logFile.read(magic, 0);
+            if (magic.getLong(0) != LOG_MAGIC) {
+                throw new IOException(path + " is not an answer log");
+            }
+        } else {
+            logFile.truncate(0);
+            logFile.write(magic.putLong(0, LOG_MAGIC), 0);
+        }
+        logSize = logFile.size();
+    }
+
+    /**
+     * Map the index and bring it up to date with the log: replay what it does not cover yet, or rebuild
+     * it when it belongs to another log or another size. Truncates the log after its last valid record.
+     */
+    private void recoverIndex() throws IOException {
+        Path path = directory.resolve("answers.idx");
+        long size = INDEX_HEADER + (long) slots * SLOT;
+        indexChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = indexChannel.size() != size;
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        long covered = index.getLong(INDEX_COVERED);
+        if (fresh || index.getLong(0) != INDEX_MAGIC || index.getInt(8) != slots || covered < LOG_HEADER || covered > logSize) {
+            for (long p = 0; p < size; p += Long.BYTES) index.putLong((int) p, 0);
+            index.putLong(0, INDEX_MAGIC);
+            index.putInt(8, slots);
+            covered = LOG_HEADER;
+        }
+
+        liveEntries = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (index.getLong(slotPosition(slot) + Long.BYTES) != EMPTY) liveEntries++;
+        }
+
+        long offset = covered;
+        int replayed = 0;
+        while (offset < logSize) {
+            Record record = readRecord(offset, true);
+            if (record == null) {
+                log.warn("Answer log has a torn or corrupt tail at {}, dropping {} bytes", offset, logSize - offset);
+                logFile.truncate(offset);
+                logSize = offset;
+                break;
+            }
+            index(record.key, hash(record.key), offset);
+            offset += record.size();
+            replayed++;
+        }
+        index.putLong(INDEX_COVERED, logSize);
+        if (replayed > 0) {
+            log.info("Answer store replayed {} log records into the index", replayed);
+        }
+    }
+
+    /** Slot holding {@code key}, or -1. Caller holds a lock. */
+    private int find(byte[] key, long hash) throws IOException {
+        int mask = slots - 1;
+        for (int probe = 0, slot = (int) hash & mask; probe < slots; probe++, slot = (slot + 1) & mask) {
+            int position = slotPosition(slot);
+            long offset = index.getLong(position + Long.BYTES);
+            if (offset == EMPTY) return -1;
+            if (index.getLong(position) == hash) {
+                Record record = readRecord(offset, false);
+                if (record != null && Arrays.equals(record.key, key)) return slot;
+            }
+        }
+        return -1;
+    }
+
+    /** Point {@code key} at {@code offset}, replacing an older record of the same key. Caller holds the write lock. */
+    private void index(byte[] key, long hash, long offset) throws IOException {
+        int existing = find(key, hash);
+        if (existing >= 0) {
+            index.putLong(slotPosition(existing) + Long.BYTES, offset);
+            return;
+        }
+        int mask = slots - 1;
+        for (int probe = 0, slot = (int) hash & mask; probe < slots; probe++, slot = (slot + 1) & mask) {
+            int position = slotPosition(slot);
+            long current = index.getLong(position + Long.BYTES);
+            if (current == EMPTY) {
+                index.putLong(position, hash);
+                index.putLong(position + Long.BYTES, offset);
+                liveEntries++;
+                return;
+            }
+        }
+        throw new IOException("answer index is full");
+    }
+
+    /**
+     * Read the record at {@code offset}; null if it runs past the log or fails validation.
+     *
+     * @param withValue false reads only the key, enough for probing and compaction
+     */
+    private Record readRecord(long offset, boolean withValue) throws IOException {
+        if (offset < LOG_HEADER || offset + RECORD_HEADER > logSize) return null;
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        readFully(header, offset);
+        int crc = header.getInt(0);
+        int keyLength = header.getInt(4);
+        int valueLength = header.getInt(8);
+        long expiresAt = header.getLong(12);
+        if (keyLength <= 0 || keyLength > MAX_KEY_BYTES || valueLength < 0 || valueLength > MAX_VALUE_BYTES
+            || offset + RECORD_HEADER + keyLength + valueLength > logSize) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(keyLength + (withValue ? valueLength : 0));
+        readFully(body, offset + RECORD_HEADER);
+        byte[] key = Arrays.copyOf(body.array(), keyLength);
+        byte[] value = null;
+        if (withValue) {
+            CRC32 checksum = new CRC32();
+            checksum.update(header.array(), 4, RECORD_HEADER - 4);
+            checksum.update(body.array());
+            if ((int) checksum.getValue() != crc) return null;
+            value = Arrays.copyOfRange(body.array(), keyLength, keyLength + valueLength);
+        }
+        return new Record(key, value, valueLength, expiresAt);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (logFile.read(buffer, position + buffer.position()) < 0) throw new IOException("unexpected end of answer log");
+        }
+    }
+
+    private static ByteBuffer encode(byte[] key, byte[] value, long expiresAt) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + key.length + value.length);
+        record.putInt(0).putInt(key.length).putInt(value.length).putLong(expiresAt).put(key).put(value);
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), 4, record.capacity() - 4);
+        return record.putInt(0, (int) checksum.getValue()).flip();
+    }
+
+    private static byte[] key(String model, String prompt) {
+        // "2\n" marks keys that keep symbols; records under the older, punctuation-free keys never match
+        return ("2\n" + model + '\n' + PromptNormalizer.foldCaseAndSpace(prompt)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** 64-bit FNV-1a with a final mix, so the low bits used for the slot are well spread. */
+    private static long hash(byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        return h ^ (h >>> 33);
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER + slot * SLOT;
+    }
+
+    private <T> T read(Supplier<T> value) {
+        lock.readLock().lock();
+        try {
+            return value.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (index != null) index.force();
+            if (indexChannel != null) indexChannel.close();
+            if (logFile != null) logFile.close();
+        } catch (IOException e) {
+            log.warn("Closing the answer store failed: {}", e.toString());
+        }
+        logFile = null;
+        index = null;
+        indexChannel = null;
+    }
+
+    @PreDestroy
+    void close() {
+        lock.writeLock().lock();
+        try {
+            if (logFile != null) logFile.force(true);
+            closeQuietly();
+        } catch (IOException e) {
+            log.warn("Flushing the answer store failed: {}", e.toString());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private record Record(byte[] key, byte[] value, int valueLength, long expiresAt) {
+        int size() {
+            return RECORD_HEADER + key.length + valueLength;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.mcp.server.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.example.mcp.server.helper.PlanExecutor;
+import com.example.mcp.server.helper.ToolInvoker;
+import com.example.mcp.server.model.BatchPrompt;
+import com.example.mcp.server.model.BatchResult;
+import com.example.mcp.server.model.RoutedDecision;
+import com.example.mcp.server.model.ToolDecision;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs many prompts as one job: routing goes through {@link LlmService#decideTools} so several prompts
+ * share an LLM call, identical calls of idempotent tools run once, and tool calls run in parallel up to
+ * {@code mcp.batch.max-concurrency}. A call starts as soon as its prompt is routed, so prompts answered
+ * by the fast path or the cache don't wait for slower routing chunks. Results are emitted as each call
+ * finishes, not in request order.
+ */
+@Slf4j
+@Service
+public class BatchService {
+    private final LlmService llmService;
+    private final ToolInvoker toolInvoker;
+    private final PlanExecutor planExecutor;
+    private final ObjectMapper mapper = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    @Value("${mcp.batch.max-prompts:500}")
+    private int maxPrompts;
+
+    @Value("${mcp.batch.max-concurrency:8}")
+    private int maxConcurrency;
+
+    public BatchService(LlmService llmService, ToolInvoker toolInvoker, PlanExecutor planExecutor) {
+        this.llmService = llmService;
+        this.toolInvoker = toolInvoker;
+        this.planExecutor = planExecutor;
+    }
+
+    public Flux<BatchResult> run(List<BatchPrompt> prompts) {
+        if (prompts == null || prompts.isEmpty()) {
+            return Flux.just(new BatchResult(null, null, "No prompts provided."));
+        }
+        if (prompts.size() > maxPrompts) {
+            return Flux.just(new BatchResult(null, null, "Too many prompts: " + prompts.size() + " (max " + maxPrompts + ")"));
+        }
+
+        List<String> texts = new ArrayList<>();
+        List<String> routedIds = new ArrayList<>();
+        List<BatchResult> rejected = new ArrayList<>();
+        for (int i = 0; i < prompts.size(); i++) {
+            BatchPrompt prompt = prompts.get(i);
+            String id = prompt.id() != null ? prompt.id() : String.valueOf(i);
+            if (prompt.prompt() == null || prompt.prompt().isBlank()) {
+                rejected.add(new BatchResult(id, null, "No prompt provided."));
+            } else {
+                texts.add(prompt.prompt());
+                routedIds.add(id);
+            }
+        }
+        log.info("Received batch of {} prompts", prompts.size());
+
+        Flux<BatchResult> routed = texts.isEmpty()
+                ? Flux.empty()
+                : Flux.defer(() -> execute(routedIds, llmService.decideTools(texts)));
+        return Flux.fromIterable(rejected).concatWith(routed);
+    }
+
+    /**
+     * Start each tool call as soon as its prompt is routed. Identical calls share one execution: a
+     * decision whose call already started joins it and gets the same output.
+     */
+    private Flux<BatchResult> execute(List<String> ids, Flux<RoutedDecision> decisions) {
+        Map<String, Mono<String>> calls = new ConcurrentHashMap<>();
+        AtomicInteger joined = new AtomicInteger();
+
+        return decisions.flatMap(routed -> {
+                            ToolDecision decision = routed.decision();
+                            String key = dedupeKey(decision, routed.index());
+                            Mono<String> call = calls.get(key);
+                            if (call != null) {
+                                joined.incrementAndGet();
+                            } else {
+                                call = calls.computeIfAbsent(key, k -> output(decision).cache());
+                            }
+                            return call.map(text -> new BatchResult(ids.get(routed.index()), decision.toolName(), text));
+                        }, maxConcurrency)
+                        .doOnComplete(() -> {
+                            if (joined.get() > 0) {
+                                log.info("Batch: {} tool calls after de-duplicating {} decisions", calls.size(), calls.size() + joined.get());
+                            }
+                        });
+    }
+
+    private Mono<String> output(ToolDecision decision) {
+        return planExecutor.run(decision).collect(Collectors.joining());
+    }
+
+    /**
+     * Calls of the same idempotent tool with equal arguments share a key; anything else is unique.
+     */
+    private String dedupeKey(ToolDecision decision, int index) {
+        if (decision.toolName() == null || decision.arguments() == null || !toolInvoker.isIdempotent(decision.toolName())) {
+            return "#" + index;
+        }
+        try {
+            return decision.toolName() + '\u0000' + mapper.writeValueAsString(new TreeMap<>(decision.arguments()));
+        } catch (JsonProcessingException e) {
+            return "#" + index;
+        }
+    }
+}
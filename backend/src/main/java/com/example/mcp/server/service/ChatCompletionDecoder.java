@@ -0,0 +1,158 @@
+package com.example.mcp.server.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import com.example.mcp.server.model.ChatCompletion;
+import com.example.mcp.server.model.TokenUsage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decodes an OpenRouter chat-completion body straight from the response {@link DataBuffer}s with
+ * Jackson's non-blocking parser. Buffers are parsed and released as they arrive; only the assistant
+ * text, the {@code usage} counters and an error message are kept, everything else (other choices,
+ * logprobs, reasoning, provider metadata) is tokenized and dropped without building a tree.
+ * <p>
+ * Recognized text locations, first non-blank wins: {@code choices[].message.content},
+ * {@code choices[].message} as a string, {@code choices[].content}, {@code choices[].text}, then the
+ * top-level {@code text}, {@code output} and {@code response} fields.
+ */
+@Component
+public class ChatCompletionDecoder {
+    private static final String ARRAY = "[]";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public Mono<ChatCompletion> decode(Flux<DataBuffer> body) {
+        return Mono.defer(() -> {
+            final EnvelopeReader reader;
+            try {
+                reader = new EnvelopeReader(jsonFactory.createNonBlockingByteBufferParser());
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+
+            return body.doOnNext(buffer -> {
+                           try {
+                               reader.feed(buffer);
+                           } finally {
+                               DataBufferUtils.release(buffer);
+                           }
+                       })
+                       .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                       .then(Mono.fromCallable(reader::finish));
+        });
+    }
+
+    private static final class EnvelopeReader {
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+
+        private String choiceText;
+        private String topLevelText;
+        private String error;
+        private int promptTokens;
+        private int completionTokens;
+        private int totalTokens;
+        private int cachedPromptTokens;
+        private boolean sawUsage;
+
+        private EnvelopeReader(JsonParser parser) {
+            this.parser = parser;
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        private void feed(DataBuffer buffer) {
+            try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                while (chunks.hasNext()) {
+                    ByteBuffer chunk = chunks.next();
+                    if (chunk.hasRemaining()) {
+                        feeder.feedInput(chunk);
+                        drain();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (token == JsonToken.VALUE_STRING) {
+                    onString(parser.getParsingContext());
+                } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                    onInt(parser.getParsingContext());
+                }
+            }
+        }
+
+        private void onString(JsonStreamContext ctx) throws IOException {
+            if (choiceText == null && (at(ctx, "content", "message", ARRAY, "choices")
+                                       || at(ctx, "message", ARRAY, "choices")
+                                       || at(ctx, "content", ARRAY, "choices")
+                                       || at(ctx, "text", ARRAY, "choices"))) {
+                String text = parser.getText();
+                if (!text.isBlank()) choiceText = text;
+            } else if (topLevelText == null && (at(ctx, "text") || at(ctx, "output") || at(ctx, "response"))) {
+                String text = parser.getText();
+                if (!text.isBlank()) topLevelText = text;
+            } else if (error == null && at(ctx, "message", "error")) {
+                error = parser.getText();
+            }
+        }
+
+        private void onInt(JsonStreamContext ctx) throws IOException {
+            if (at(ctx, "prompt_tokens", "usage")) {
+                promptTokens = parser.getIntValue();
+                sawUsage = true;
+            } else if (at(ctx, "completion_tokens", "usage")) {
+                completionTokens = parser.getIntValue();
+                sawUsage = true;
+            } else if (at(ctx, "total_tokens", "usage")) {
+                totalTokens = parser.getIntValue();
+                sawUsage = true;
+            } else if (at(ctx, "cached_tokens", "prompt_tokens_details", "usage")) {
+                cachedPromptTokens = parser.getIntValue();
+            }
+        }
+
+        private ChatCompletion finish() throws IOException {
+            feeder.endOfInput();
+            drain();
+            parser.close();
+
+            TokenUsage usage = sawUsage
+                    ? new TokenUsage(promptTokens, completionTokens, totalTokens, cachedPromptTokens)
+                    : null;
+            return new ChatCompletion(choiceText != null ? choiceText : topLevelText, usage, error);
+        }
+
+        /**
+         * Whether the current value sits at the given path, innermost segment first, anchored at the
+         * root object. {@code "[]"} matches any array element.
+         */
+        private static boolean at(JsonStreamContext ctx, String... path) {
+            for (String segment : path) {
+                if (ctx == null) return false;
+                if (ARRAY.equals(segment)) {
+                    if (!ctx.inArray()) return false;
+                } else if (!ctx.inObject() || !segment.equals(ctx.getCurrentName())) {
+                    return false;
+                }
+                ctx = ctx.getParent();
+            }
+            return ctx != null && ctx.inRoot();
+        }
+    }
+}
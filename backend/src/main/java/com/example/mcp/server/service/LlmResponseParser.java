@@ -1,17 +1,38 @@
 package com.example.mcp.server.service;
 
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.model.ChatCompletion;
+import com.example.mcp.server.model.PlanStep;
 import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolPlan;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @Component
 public class LlmResponseParser {
+    private static final TypeReference<LinkedHashMap<String, Object>> ARGUMENTS_TYPE = new TypeReference<>() {};
+    /** Upper bound on '{'/'[' positions tried, so brace-heavy prose can't make parsing quadratic. */
+    private static final int MAX_JSON_CANDIDATES = 16;
+
     private final ObjectMapper mapper = new ObjectMapper();
+    private final McpMetrics metrics;
+
+    public LlmResponseParser(McpMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     @SuppressWarnings("unchecked")
     public Mono<ToolDecision> parse(Map<String, Object> llmResponse) {
@@ -33,29 +54,251 @@ public class LlmResponseParser {
                 return Mono.just(new ToolDecision(null, Map.of("answer", fallback)));
             }
 
-            String jsonFragment = content.strip()
-                                         // remove leading non { characters and trailing non } characters
-                                         .replaceAll("^[^\\{\\[]*", "")
-                                         .replaceAll("[^\\}\\]]*$", "");
+            return Mono.just(parseContent(content));
+
+        } catch (Exception e) {
+            return Mono.just(new ToolDecision(null,
+                    Map.of("answer", "Failed to parse LLM response: " + e.getMessage())));
+        }
+    }
+
+    /**
+     * Turn a decoded chat completion into a decision.
+     */
+    public Mono<ToolDecision> parse(ChatCompletion completion) {
+        return Mono.just(plan(completion, false).steps().get(0).decision());
+    }
 
-            if ((jsonFragment.startsWith("{") && jsonFragment.endsWith("}")) ||
-                (jsonFragment.startsWith("[") && jsonFragment.endsWith("]"))) {
+    /**
+     * Turn a decoded chat completion into a plan: every decision of a top-level array becomes a step,
+     * a single decision object a one-step plan.
+     */
+    public Mono<ToolPlan> parsePlan(ChatCompletion completion) {
+        return Mono.just(plan(completion, true));
+    }
 
-                Map<String, Object> map = mapper.readValue(jsonFragment, Map.class);
-                String toolName = map.get("toolName") != null ? map.get("toolName").toString() : null;
-                Map<String, Object> arguments = (Map<String, Object>) map.get("arguments");
+    private ToolPlan plan(ChatCompletion completion, boolean allSteps) {
+        final long start = System.nanoTime();
+        String content = completion.content();
+        if (content == null || content.isBlank()) {
+            metrics.parseFallback(completion.error() != null ? "provider_error" : "empty");
+            metrics.recordParse(McpMetrics.FALLBACK, start);
+            String fallback = completion.error() != null
+                    ? "LLM returned an error: " + completion.error()
+                    : "LLM returned empty content";
+            return ToolPlan.of(new ToolDecision(null, Map.of("answer", fallback)));
+        }
 
-                return Mono.just(new ToolDecision(toolName, arguments));
-            } else {
-                return Mono.just(new ToolDecision(null, Map.of("answer", content)));
+        try {
+            List<PlanStep> steps = findSteps(content, allSteps);
+            if (steps.isEmpty()) {
+                metrics.parseFallback("no_json");
+                metrics.recordParse(McpMetrics.FALLBACK, start);
+                return ToolPlan.of(new ToolDecision(null, Map.of("answer", content)));
             }
-
+            metrics.recordParse(McpMetrics.SUCCESS, start);
+            return new ToolPlan(steps);
         } catch (Exception e) {
-            return Mono.just(new ToolDecision(null,
+            metrics.parseFallback("unreadable");
+            metrics.recordParse(McpMetrics.ERROR, start);
+            return ToolPlan.of(new ToolDecision(null,
                     Map.of("answer", "Failed to parse LLM response: " + e.getMessage())));
         }
     }
 
+    /**
+     * Turn the assistant's text into a decision. The text is scanned once: the first balanced JSON
+     * object (or array of objects) carrying {@code toolName}/{@code arguments} is bound directly,
+     * with any chatty prefix, code fences or trailing prose left untouched. Text without such an
+     * object becomes a direct answer.
+     */
+    public ToolDecision parseContent(String content) {
+        List<PlanStep> steps = findSteps(content, false);
+        return !steps.isEmpty() ? steps.get(0).decision() : new ToolDecision(null, Map.of("answer", content));
+    }
+
+    private List<PlanStep> findSteps(String content, boolean allSteps) {
+        int start = nextJsonStart(content, 0);
+        for (int attempt = 0; start >= 0 && attempt < MAX_JSON_CANDIDATES; attempt++) {
+            List<PlanStep> steps = readCandidate(content, start, allSteps);
+            if (!steps.isEmpty()) {
+                return steps;
+            }
+            start = nextJsonStart(content, start + 1);
+        }
+        return List.of();
+    }
+
+    /**
+     * Stream-parse the JSON value starting at {@code start}. Returns no steps if it is not well-formed or
+     * does not look like a decision, so the caller can try the next candidate. Of an array only the first
+     * decision is read unless {@code allSteps} is set.
+     */
+    private List<PlanStep> readCandidate(String content, int start, boolean allSteps) {
+        try (StringReader reader = new StringReader(content)) {
+            reader.skip(start);
+            try (JsonParser parser = mapper.getFactory().createParser(reader)) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    PlanStep step = readStep(parser, 0);
+                    return step != null ? List.of(step) : List.of();
+                }
+                if (token != JsonToken.START_ARRAY) {
+                    return List.of();
+                }
+
+                List<PlanStep> steps = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    PlanStep step = readStep(parser, steps.size());
+                    if (step != null) {
+                        steps.add(step);
+                        if (!allSteps) break;
+                    }
+                }
+                return steps;
+            }
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Turn the reply to a batch routing request into decisions keyed by the request number the router
+     * echoed as {@code "id"}. Entries without a number are dropped; an unreadable reply yields an empty map.
+     */
+    public Map<Integer, ToolDecision> parseBatch(ChatCompletion completion) {
+        final long start = System.nanoTime();
+        Map<Integer, ToolDecision> decisions = new HashMap<>();
+        String content = completion.content();
+        if (content == null || content.isBlank()) {
+            metrics.parseFallback(completion.error() != null ? "provider_error" : "empty");
+            metrics.recordParse(McpMetrics.FALLBACK, start);
+            return decisions;
+        }
+
+        int arrayStart = content.indexOf('[');
+        for (int attempt = 0; arrayStart >= 0 && attempt < MAX_JSON_CANDIDATES && decisions.isEmpty(); attempt++) {
+            readBatch(content, arrayStart, decisions);
+            arrayStart = content.indexOf('[', arrayStart + 1);
+        }
+
+        if (decisions.isEmpty()) {
+            metrics.parseFallback("no_json");
+        }
+        metrics.recordParse(decisions.isEmpty() ? McpMetrics.FALLBACK : McpMetrics.SUCCESS, start);
+        return decisions;
+    }
+
+    /**
+     * Stream the array starting at {@code start}, keeping the numbered decisions read before the first
+     * malformed element.
+     */
+    private void readBatch(String content, int start, Map<Integer, ToolDecision> decisions) {
+        try (StringReader reader = new StringReader(content)) {
+            reader.skip(start);
+            try (JsonParser parser = mapper.getFactory().createParser(reader)) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    return;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    PlanStep step = readStep(parser, decisions.size());
+                    int number = step != null ? requestNumber(step.id()) : -1;
+                    if (number > 0) {
+                        decisions.putIfAbsent(number, step.decision());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // keep what was read so far
+        }
+    }
+
+    /**
+     * Bind one decision object; the parser is positioned on its START_OBJECT and is left on its END_OBJECT.
+     * The optional {@code "id"} and {@code "dependsOn"} fields place it in a plan; without an id it is
+     * named after its position.
+     */
+    private PlanStep readStep(JsonParser parser, int position) throws IOException {
+        String id = null;
+        List<String> dependsOn = List.of();
+        String toolName = null;
+        Map<String, Object> arguments = null;
+        String answer = null;
+        boolean sawDecisionField = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "toolName" -> {
+                    sawDecisionField = true;
+                    toolName = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getValueAsString() : null;
+                    parser.skipChildren();
+                    if ("null".equals(toolName) || (toolName != null && toolName.isBlank())) toolName = null;
+                }
+                case "arguments" -> {
+                    sawDecisionField = true;
+                    if (value == JsonToken.START_OBJECT) {
+                        arguments = mapper.readValue(parser, ARGUMENTS_TYPE);
+                    } else {
+                        // e.g. "arguments": ["London"]; leave the parser after it so later fields and steps are read
+                        arguments = null;
+                        parser.skipChildren();
+                    }
+                }
+                case "id" -> {
+                    id = value.isScalarValue() && value != JsonToken.VALUE_NULL ? parser.getValueAsString() : null;
+                    parser.skipChildren();
+                }
+                case "dependsOn" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        dependsOn = new ArrayList<>();
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            if (parser.currentToken().isScalarValue()) dependsOn.add(parser.getValueAsString());
+                            else parser.skipChildren();
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "answer" -> {
+                    // some models put the direct answer next to "toolName": null instead of in the arguments
+                    sawDecisionField = true;
+                    answer = value.isScalarValue() ? parser.getValueAsString() : null;
+                    parser.skipChildren();
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (!sawDecisionField) {
+            return null;
+        }
+        if (arguments == null) {
+            arguments = new LinkedHashMap<>();
+        }
+        if (toolName == null && answer != null) {
+            arguments.putIfAbsent("answer", answer);
+        }
+        return new PlanStep(id != null ? id : "step" + (position + 1), new ToolDecision(toolName, arguments), dependsOn);
+    }
+
+    private static int requestNumber(String id) {
+        try {
+            return Integer.parseInt(id.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int nextJsonStart(String content, int from) {
+        for (int i = from; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '{' || c == '[') return i;
+        }
+        return -1;
+    }
+
     /**
      * Attempt to extract assistant content from one choice element.
      * Supports several common shapes:
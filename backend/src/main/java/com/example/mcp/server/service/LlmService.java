@@ -1,19 +1,52 @@
 package com.example.mcp.server.service;
 
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.helper.QuotaScheduler;
+import com.example.mcp.server.helper.UpstreamClients;
+import com.example.mcp.server.model.ChatCompletion;
+import com.example.mcp.server.model.RequestPriority;
+import com.example.mcp.server.model.RoutedDecision;
 import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolPlan;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class LlmService {
+    private static final String PLAN_INSTRUCTIONS = """
+
+            If the request needs more than one tool, respond ONLY with a JSON array holding one object per tool
+            call, in the order the answers should be shown. Give each an "id"; if a call must wait for another
+            one, list those ids in "dependsOn":
+            [{"id": "weather", "toolName": "getWeather", "arguments": {...}, "dependsOn": []},
+             {"id": "lunch", "toolName": "bookEvent", "arguments": {...}, "dependsOn": []}]
+            """;
+
+    private static final String BATCH_INSTRUCTIONS = """
+
+            The user message holds several numbered requests, one per line. Decide each one independently and
+            respond ONLY with a JSON array holding one object per request, adding its number as "id":
+            [{"id": 1, "toolName": "...", "arguments": {...}}, {"id": 2, ...}]
+            """;
+
     private final WebClient webClient;
     private final LlmResponseParser parser;
+    private final ChatCompletionDecoder decoder;
+    private final RoutingCache routingCache;
+    private final List<PreRouter> preRouters;
+    private final McpMetrics metrics;
+    private final ModelRouter modelRouter;
+    private final ToolCatalog toolCatalog;
 
     @Value("${openrouter.api.url}")
     private String llmUrl;
@@ -21,51 +54,200 @@ public class LlmService {
     @Value("${openrouter.api.key}")
     private String apiKey;
 
-    @Value("${openrouter.model}")
-    private String model;
+    @Value("${mcp.batch.routing-batch-size:20}")
+    private int batchSize;
+
+    @Value("${mcp.batch.routing-concurrency:4}")
+    private int batchConcurrency;
 
-    public LlmService(WebClient.Builder builder, LlmResponseParser parser) {
-        this.webClient = builder.build();
+    public LlmService(UpstreamClients upstreamClients,
+                      LlmResponseParser parser,
+                      ChatCompletionDecoder decoder,
+                      RoutingCache routingCache,
+                      List<PreRouter> preRouters,
+                      McpMetrics metrics,
+                      ModelRouter modelRouter,
+                      ToolCatalog toolCatalog) {
+        this.webClient = upstreamClients.builder("openrouter").build();
         this.parser = parser;
+        this.decoder = decoder;
+        this.routingCache = routingCache;
+        this.preRouters = preRouters;
+        this.metrics = metrics;
+        this.modelRouter = modelRouter;
+        this.toolCatalog = toolCatalog;
     }
 
     public Mono<ToolDecision> decideTool(String userPrompt) {
-        String systemPrompt = """
-                You are an MCP LLM Router. User may ask for:
-                1. Weather info
-                2. Calendar booking
-                3. General questions
-
-                Respond ONLY in JSON with NO extra text:
-                {
-                  "toolName": "<ToolName or null>",
-                  "arguments": { key-value arguments for tool OR answer: <direct answer if no tool> }
-                }
-                Tools available:
-                - getWeather -> arguments: {"city": "London"}
-                - bookEvent -> arguments: {"title": "Meeting", "startIsoUtc": "2025-10-19T12:00:00Z", "durationMin": 60}
-                - askChat -> arguments: {"prompt": "Your question"}
-                """;
+        final long start = System.nanoTime();
+        ToolDecision local = routeLocally(userPrompt, start);
+        if (local != null) {
+            return Mono.just(local);
+        }
+
+        return complete("tool", toolCatalog.routerPrompt(), userPrompt)
+                .flatMap(parser::parse)
+                .doOnNext(decision -> {
+                    metrics.recordRouting("llm", McpMetrics.SUCCESS, start);
+                    routingCache.put(userPrompt, decision);
+                })
+                .onErrorResume(ex -> {
+                    metrics.recordRouting("llm", McpMetrics.outcomeOf(ex), start);
+                    return Mono.just(new ToolDecision(null, Map.of("answer", "LLM error: " + ex)));
+                });
+    }
+
+    /**
+     * Decide every tool call a prompt needs. Prompts the fast path or the cache answer, and router replies
+     * with a single decision, become one-step plans; only those are cached.
+     */
+    public Mono<ToolPlan> decidePlan(String userPrompt) {
+        final long start = System.nanoTime();
+        ToolDecision local = routeLocally(userPrompt, start);
+        if (local != null) {
+            return Mono.just(ToolPlan.of(local));
+        }
+
+        return complete("plan", toolCatalog.routerPrompt() + PLAN_INSTRUCTIONS, userPrompt)
+                .flatMap(parser::parsePlan)
+                .doOnNext(plan -> {
+                    metrics.recordRouting("llm", McpMetrics.SUCCESS, start);
+                    if (plan.steps().size() == 1) {
+                        routingCache.put(userPrompt, plan.steps().get(0).decision());
+                    }
+                })
+                .onErrorResume(ex -> {
+                    metrics.recordRouting("llm", McpMetrics.outcomeOf(ex), start);
+                    return Mono.just(ToolPlan.of(new ToolDecision(null, Map.of("answer", "LLM error: " + ex))));
+                });
+    }
+
+    /**
+     * Decide tools for many prompts at once. Prompts the fast path or the cache can answer skip the LLM
+     * and are emitted first; the rest are routed {@code batchSize} at a time in one request each and
+     * emitted as their chunk comes back. A prompt the router leaves out of its reply is routed on its own.
+     *
+     * @return one decision per prompt, in the order they become known
+     */
+    public Flux<RoutedDecision> decideTools(List<String> prompts) {
+        final long start = System.nanoTime();
+        List<RoutedDecision> local = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < prompts.size(); i++) {
+            ToolDecision decision = routeLocally(prompts.get(i), start);
+            if (decision != null) {
+                local.add(new RoutedDecision(i, decision));
+            } else {
+                pending.add(i);
+            }
+        }
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            chunks.add(pending.subList(from, Math.min(from + batchSize, pending.size())));
+        }
+
+        return Flux.fromIterable(local)
+                   .concatWith(Flux.fromIterable(chunks)
+                                   .flatMap(chunk -> routeChunk(prompts, chunk, start), batchConcurrency));
+    }
+
+    /**
+     * Route one chunk of prompts with a single LLM call.
+     */
+    private Flux<RoutedDecision> routeChunk(List<String> prompts, List<Integer> chunk, long start) {
+        if (chunk.size() == 1) {
+            int index = chunk.get(0);
+            return decideTool(prompts.get(index)).map(decision -> new RoutedDecision(index, decision)).flux();
+        }
+
+        StringBuilder numbered = new StringBuilder();
+        for (int i = 0; i < chunk.size(); i++) {
+            numbered.append(i + 1).append(". ").append(prompts.get(chunk.get(i)).replace('\n', ' ')).append('\n');
+        }
+
+        return complete("batch", toolCatalog.routerPrompt() + BATCH_INSTRUCTIONS, numbered.toString())
+                .map(parser::parseBatch)
+                .flatMapMany(byNumber -> {
+                    metrics.recordRouting("llm_batch", McpMetrics.SUCCESS, start);
+                    List<RoutedDecision> routed = new ArrayList<>();
+                    List<Integer> missing = new ArrayList<>();
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ToolDecision decision = byNumber.get(i + 1);
+                        int index = chunk.get(i);
+                        if (decision == null) {
+                            missing.add(index);
+                        } else {
+                            routed.add(new RoutedDecision(index, decision));
+                            routingCache.put(prompts.get(index), decision);
+                        }
+                    }
+                    return Flux.fromIterable(routed)
+                               .concatWith(Flux.fromIterable(missing)
+                                               .flatMap(index -> decideTool(prompts.get(index))
+                                                       .map(decision -> new RoutedDecision(index, decision)), batchConcurrency));
+                })
+                .onErrorResume(ex -> {
+                    metrics.recordRouting("llm_batch", McpMetrics.outcomeOf(ex), start);
+                    ToolDecision failed = new ToolDecision(null, Map.of("answer", "LLM error: " + ex));
+                    return Flux.fromIterable(chunk).map(index -> new RoutedDecision(index, failed));
+                });
+    }
+
+    /**
+     * Answer from the pre-routers or the routing cache, or null if the LLM has to decide.
+     */
+    private ToolDecision routeLocally(String userPrompt, long start) {
+        for (PreRouter preRouter : preRouters) {
+            Optional<ToolDecision> fastDecision = preRouter.tryRoute(userPrompt);
+            if (fastDecision.isPresent()) {
+                metrics.recordRouting("fastpath", McpMetrics.SUCCESS, start);
+                return fastDecision.get();
+            }
+        }
+
+        ToolDecision cached = routingCache.get(userPrompt);
+        if (cached != null) {
+            metrics.recordRouting("cache", McpMetrics.SUCCESS, start);
+        }
+        return cached;
+    }
+
+    /**
+     * One routing completion, hedged across the configured models by {@link ModelRouter}. Replies without
+     * content count as failed so a healthy model can still answer.
+     *
+     * @param call tool, plan or batch; tags the token usage
+     */
+    private Mono<ChatCompletion> complete(String call, String systemPrompt, String userContent) {
+        return modelRouter.route(model -> complete(model, systemPrompt, userContent)
+                .doOnNext(completion -> {
+                    if (completion.usage() != null) metrics.recordUsage(call, model, completion.usage());
+                })
+                .filter(completion -> completion.content() != null && !completion.content().isBlank())
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("empty completion from " + model))));
+    }
 
+    private Mono<ChatCompletion> complete(String model, String systemPrompt, String userContent) {
         Map<String, Object> body = Map.of(
                 "model", model,
                 "messages", new Object[]{
                         Map.of("role", "system", "content", systemPrompt),
-                        Map.of("role", "user", "content", userPrompt)
+                        Map.of("role", "user", "content", userContent)
                 },
                 "stream", false
         );
 
         return webClient.post()
                         .uri(llmUrl)
+                        // every request waits for its routing call, so it goes ahead of tool traffic
+                        .attribute(QuotaScheduler.PRIORITY_ATTRIBUTE, RequestPriority.ROUTING)
                         .header("Authorization", "Bearer " + apiKey)
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
                         .bodyValue(body)
                         .retrieve()
-                        .bodyToMono(Map.class)
-                        .timeout(Duration.ofSeconds(60))
-                        .flatMap(parser::parse)
-                        .onErrorResume(ex -> Mono.just(new ToolDecision(null, Map.of("answer", "LLM error: " + ex))));
+                        .bodyToFlux(DataBuffer.class)
+                        .as(decoder::decode);
     }
 }
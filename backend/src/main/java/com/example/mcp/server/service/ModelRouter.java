@@ -0,0 +1,294 @@
+package com.example.mcp.server.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.example.mcp.server.helper.QuotaScheduler;
+import com.example.mcp.server.helper.UpstreamQuotaException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Picks the model(s) for a routing call. The first healthy model in {@code openrouter.routing.models}
+ * gets the request; if it has not answered after its own p95 latency (or fails earlier), the same request
+ * is hedged to the next healthy model and whichever answers first wins, the other call is cancelled.
+ * <p>
+ * Each model has a circuit breaker: after {@code failure-threshold} consecutive failures or slow calls it
+ * is skipped for {@code open-duration}, then a single trial call decides whether it is used again.
+ * <p>
+ * All models share the OpenRouter quota. A call refused for quota (by {@link QuotaScheduler} or with a
+ * 429) says nothing about the model and does not count against its breaker, and no hedge is sent while
+ * that quota is saturated, since the backup would only wait in the same queue.
+ */
+@Slf4j
+@Component
+public class ModelRouter {
+    /** Upstream whose quota every routing model draws from. */
+    private static final String UPSTREAM = "openrouter";
+
+    private final List<String> models;
+    private final Map<String, ModelState> states = new LinkedHashMap<>();
+    private final boolean hedgeEnabled;
+    private final Duration minHedgeDelay;
+    private final Duration maxHedgeDelay;
+    private final Duration attemptTimeout;
+    private final long slowCallNanos;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private final Counter rejected;
+    private final Counter hedgesSkipped;
+    private final MeterRegistry meterRegistry;
+    private final QuotaScheduler quotaScheduler;
+
+    public ModelRouter(MeterRegistry meterRegistry,
+                       QuotaScheduler quotaScheduler,
+                       @Value("${openrouter.model}") String defaultModel,
+                       @Value("${openrouter.routing.models:}") String[] models,
+                       @Value("${openrouter.routing.hedge.enabled:true}") boolean hedgeEnabled,
+                       @Value("${openrouter.routing.hedge.min-delay:300ms}") Duration minHedgeDelay,
+                       @Value("${openrouter.routing.hedge.max-delay:5s}") Duration maxHedgeDelay,
+                       @Value("${openrouter.routing.attempt-timeout:20s}") Duration attemptTimeout,
+                       @Value("${openrouter.routing.breaker.slow-call:10s}") Duration slowCall,
+                       @Value("${openrouter.routing.breaker.failure-threshold:5}") int failureThreshold,
+                       @Value("${openrouter.routing.breaker.open-duration:30s}") Duration openDuration) {
+        this.meterRegistry = meterRegistry;
+        this.quotaScheduler = quotaScheduler;
+        List<String> configured = Arrays.stream(models).map(String::strip).filter(m -> !m.isEmpty()).distinct().toList();
+        this.models = configured.isEmpty() ? List.of(defaultModel) : configured;
+        this.hedgeEnabled = hedgeEnabled;
+        this.minHedgeDelay = minHedgeDelay;
+        this.maxHedgeDelay = maxHedgeDelay;
+        this.attemptTimeout = attemptTimeout;
+        this.slowCallNanos = slowCall.toNanos();
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+
+        this.hedgesFired = Counter.builder("mcp.routing.hedges").tag("result", "fired").register(meterRegistry);
+        this.hedgesWon = Counter.builder("mcp.routing.hedges").tag("result", "won").register(meterRegistry);
+        this.hedgesSkipped = Counter.builder("mcp.routing.hedges").tag("result", "skipped_quota").register(meterRegistry);
+        this.rejected = Counter.builder("mcp.routing.breaker.rejected").register(meterRegistry);
+        for (String model : this.models) {
+            ModelState state = new ModelState(model);
+            states.put(model, state);
+            Gauge.builder("mcp.routing.breaker.state", state, ModelState::stateValue)
+                 .description("0 closed, 1 half-open, 2 open")
+                 .tag("model", model)
+                 .register(meterRegistry);
+        }
+        log.info("Routing models: {} (hedging {})", this.models, hedgeEnabled ? "on" : "off");
+    }
+
+    /**
+     * Run {@code call} against the primary model, hedged to the backup as described above. A call that
+     * errors counts as a failure of its model; return an error from {@code call} for replies that are not
+     * usable so the other model can still win.
+     */
+    public <T> Mono<T> route(Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            List<ModelState> available = states.values().stream().filter(ModelState::allowRequest).limit(2).toList();
+            if (available.isEmpty()) {
+                rejected.increment();
+                return Mono.error(new IllegalStateException("All routing models are unavailable: " + models));
+            }
+
+            ModelState primary = available.get(0);
+            if (!hedgeEnabled || available.size() < 2) {
+                return attempt(primary, call);
+            }
+
+            ModelState backup = available.get(1);
+            AtomicBoolean hedged = new AtomicBoolean();
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<T> first = attempt(primary, call).doOnError(e -> primaryFailed.tryEmitEmpty());
+            Mono<T> second = Mono.firstWithSignal(Mono.delay(primary.hedgeDelay()).then(), primaryFailed.asMono())
+                                 .then(Mono.defer(() -> {
+                                     if (quotaScheduler.isSaturated(UPSTREAM)) {
+                                         // the primary is most likely still queued for quota; let it go on alone
+                                         hedgesSkipped.increment();
+                                         return Mono.<T>empty();
+                                     }
+                                     hedged.set(true);
+                                     hedgesFired.increment();
+                                     log.debug("Hedging routing call from {} to {}", primary.model, backup.model);
+                                     return attempt(backup, call).doOnNext(result -> hedgesWon.increment());
+                                 }));
+            return Mono.firstWithValue(first, second)
+                       .doFinally(signal -> {
+                           if (!hedged.get()) backup.releaseTrial();
+                       });
+        });
+    }
+
+    private <T> Mono<T> attempt(ModelState state, Function<String, Mono<T>> call) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean settled = new AtomicBoolean();
+            return call.apply(state.model)
+                       .timeout(attemptTimeout)
+                       .doOnNext(result -> {
+                           if (settled.compareAndSet(false, true)) state.onSuccess(System.nanoTime() - start);
+                       })
+                       .doOnError(e -> {
+                           if (!settled.compareAndSet(false, true)) return;
+                           if (isQuotaRefusal(e)) {
+                               log.warn("Routing call to {} refused for quota: {}", state.model, e.toString());
+                               state.onThrottled();
+                           } else {
+                               log.warn("Routing call to {} failed: {}", state.model, e.toString());
+                               state.onFailure();
+                               state.attemptsFailed.increment();
+                           }
+                       })
+                       .doOnCancel(() -> {
+                           // the losing side of a hedge; only slow losers count against the model
+                           if (settled.compareAndSet(false, true)) state.onCancel(System.nanoTime() - start);
+                       });
+        });
+    }
+
+    private static boolean isQuotaRefusal(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof UpstreamQuotaException) return true;
+            if (t instanceof WebClientResponseException response
+                && response.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Health of one model: recent successful latencies for the hedge delay and the breaker state.
+     */
+    private final class ModelState {
+        private static final int WINDOW = 128;
+        private static final int MIN_SAMPLES = 20;
+
+        private final String model;
+        private final long[] latencies = new long[WINDOW];
+        private int samples;
+        private int next;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean open;
+        private boolean trialInFlight;
+
+        private final Counter attemptsSucceeded;
+        private final Counter attemptsFailed;
+        private final Counter attemptsCancelled;
+        private final Counter attemptsThrottled;
+
+        private ModelState(String model) {
+            this.model = model;
+            this.attemptsSucceeded = attemptCounter(model, "success");
+            this.attemptsFailed = attemptCounter(model, "error");
+            this.attemptsCancelled = attemptCounter(model, "cancelled");
+            this.attemptsThrottled = attemptCounter(model, "throttled");
+        }
+
+        private Counter attemptCounter(String model, String outcome) {
+            return Counter.builder("mcp.routing.attempts").tags("model", model, "outcome", outcome).register(meterRegistry);
+        }
+
+        synchronized boolean allowRequest() {
+            if (!open) {
+                return true;
+            }
+            if (System.nanoTime() - openedAt < openNanos || trialInFlight) {
+                return false;
+            }
+            // half-open: let exactly one call through to probe the model
+            trialInFlight = true;
+            return true;
+        }
+
+        /** The backup was picked as a half-open trial but never called. */
+        synchronized void releaseTrial() {
+            trialInFlight = false;
+        }
+
+        synchronized void onSuccess(long nanos) {
+            latencies[next] = nanos;
+            next = (next + 1) % WINDOW;
+            samples = Math.min(samples + 1, WINDOW);
+            attemptsSucceeded.increment();
+
+            if (nanos > slowCallNanos) {
+                onFailureLocked();
+                return;
+            }
+            if (open) {
+                log.info("Routing model {} recovered, closing its circuit", model);
+            }
+            consecutiveFailures = 0;
+            open = false;
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            onFailureLocked();
+        }
+
+        /** Refused for quota: not the model's fault, but a half-open trial has to be allowed again. */
+        synchronized void onThrottled() {
+            attemptsThrottled.increment();
+            trialInFlight = false;
+        }
+
+        synchronized void onCancel(long nanos) {
+            attemptsCancelled.increment();
+            if (nanos > slowCallNanos) {
+                onFailureLocked();
+            } else {
+                // a cancelled trial proves nothing, allow another one
+                trialInFlight = false;
+            }
+        }
+
+        private void onFailureLocked() {
+            consecutiveFailures++;
+            if (open || consecutiveFailures >= failureThreshold) {
+                if (!open) {
+                    log.warn("Routing model {} failed {} times in a row, opening its circuit", model, consecutiveFailures);
+                }
+                open = true;
+                openedAt = System.nanoTime();
+            }
+            trialInFlight = false;
+        }
+
+        /**
+         * p95 of recent successful calls, clamped to the configured bounds; the upper bound until enough
+         * calls have been seen.
+         */
+        synchronized Duration hedgeDelay() {
+            if (samples < MIN_SAMPLES) {
+                return maxHedgeDelay;
+            }
+            long[] sorted = Arrays.copyOf(latencies, samples);
+            Arrays.sort(sorted);
+            long p95 = sorted[(int) Math.ceil(samples * 0.95) - 1];
+            long clamped = Math.max(minHedgeDelay.toNanos(), Math.min(maxHedgeDelay.toNanos(), p95));
+            return Duration.ofNanos(clamped);
+        }
+
+        synchronized double stateValue() {
+            if (!open) return 0;
+            return System.nanoTime() - openedAt < openNanos ? 2 : 1;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.mcp.server.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.tools.ToolRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fast-path router for unambiguous prompts such as "weather in Paris". Each rule is a compiled
+ * pattern with a base confidence; the score is scaled by how much of the prompt the match covers,
+ * so chatty prompts that merely mention the weather still go to the LLM.
+ */
+@Slf4j
+@Order(0)
+@Component
+public class PatternIntentClassifier implements PreRouter {
+    private static final String CITY = "(?<city>\\p{L}[\\p{L} .'-]{1,58}?)";
+    private static final String TRAILER = "(?:\\s+(?:today|now|right now|currently))?\\s*[?.!]*";
+    private static final Pattern FUTURE = Pattern.compile(
+            "\\b(?:tomorrow|tonight|next|weekend|later|week|monday|tuesday|wednesday|thursday|friday|saturday|sunday)\\b",
+            Pattern.CASE_INSENSITIVE);
+    // "weather in London and book lunch" is a multi-tool request, leave it to the LLM planner
+    private static final Pattern COMPOUND = Pattern.compile("\\b(?:and|then|also|plus)\\b", Pattern.CASE_INSENSITIVE);
+    // words that never make up a place name: "What's the weather?" must not become city="What's the"
+    private static final Set<String> STOP_WORDS = Set.of(
+            "what", "what's", "whats", "how", "how's", "hows", "is", "are", "was", "be", "do", "does", "did",
+            "the", "a", "an", "this", "that", "these", "those", "some", "any",
+            "i", "me", "my", "you", "your", "we", "our", "us", "they", "their", "them", "he", "she", "it", "its", "it's",
+            "tell", "show", "get", "give", "like", "love", "hate", "about", "there", "here", "today's", "current");
+
+    private static final List<IntentRule> RULES = List.of(
+            new IntentRule("getWeather", "city", 0.97, false, Pattern.compile(
+                    "^(?:(?:what(?:'s| is)|how(?:'s| is)|tell me|show me|get)\\s+)?(?:the\\s+)?(?:current\\s+)?"
+                    + "(?:weather|temperature|temp)\\s+(?:like\\s+)?(?:in|for|at)\\s+" + CITY + TRAILER + "$",
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)),
+            // no preposition to anchor the place, so it has to look like a name
+            new IntentRule("getWeather", "city", 0.95, true, Pattern.compile(
+                    "^(?:what(?:'s| is)\\s+(?:the\\s+)?)?" + CITY + "\\s+(?:weather|temperature)" + TRAILER + "$",
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE)),
+            new IntentRule("getWeather", "city", 0.9, false, Pattern.compile(
+                    "^(?:is it|will it be)\\s+(?:raining|sunny|cold|hot|warm|windy)\\s+in\\s+" + CITY + TRAILER + "$",
+                    Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE))
+    );
+
+    private final ToolRegistry toolRegistry;
+    private final boolean enabled;
+    private final double threshold;
+
+    private final Counter taken;
+    private final Counter belowThreshold;
+    private final Counter noMatch;
+    private final DistributionSummary confidence;
+
+    public PatternIntentClassifier(ToolRegistry toolRegistry,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${mcp.routing.fastpath.enabled:true}") boolean enabled,
+                                   @Value("${mcp.routing.fastpath.threshold:0.8}") double threshold) {
+        this.toolRegistry = toolRegistry;
+        this.enabled = enabled;
+        this.threshold = threshold;
+
+        this.taken = Counter.builder("mcp.routing.fastpath").tag("outcome", "taken").register(meterRegistry);
+        this.belowThreshold = Counter.builder("mcp.routing.fastpath").tag("outcome", "below_threshold").register(meterRegistry);
+        this.noMatch = Counter.builder("mcp.routing.fastpath").tag("outcome", "no_match").register(meterRegistry);
+        this.confidence = DistributionSummary.builder("mcp.routing.fastpath.confidence")
+                                             .description("Confidence of fast-path matches, taken or not")
+                                             .serviceLevelObjectives(0.5, 0.6, 0.7, 0.8, 0.9, 0.95)
+                                             .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<ToolDecision> tryRoute(String prompt) {
+        if (!enabled || prompt == null) return Optional.empty();
+
+        final String text = prompt.strip();
+        for (IntentRule rule : RULES) {
+            if (toolRegistry.getTool(rule.toolName()) == null) continue;
+
+            Matcher matcher = rule.pattern().matcher(text);
+            if (!matcher.matches()) continue;
+
+            String argument = matcher.group(rule.argumentName()).strip();
+            if (!looksLikePlace(argument, rule.capitalized())) continue;
+
+            double score = score(rule, text, argument);
+            confidence.record(score);
+
+            if (score < threshold) {
+                belowThreshold.increment();
+                log.debug("Fast path declined '{}' for {} (confidence {})", text, rule.toolName(), score);
+                return Optional.empty();
+            }
+
+            taken.increment();
+            log.info("Fast path routed prompt to {} (confidence {})", rule.toolName(), score);
+            return Optional.of(new ToolDecision(rule.toolName(), Map.of(rule.argumentName(), argument)));
+        }
+
+        noMatch.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * A place name has no stop words (a leading capitalized "The" as in "The Hague" is fine) and, when
+     * {@code capitalized} is set, starts with a capital letter.
+     */
+    static boolean looksLikePlace(String argument, boolean capitalized) {
+        if (capitalized && !Character.isUpperCase(argument.codePointAt(0))) return false;
+
+        String[] tokens = argument.split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            if (i == 0 && tokens.length > 1 && tokens[i].equals("The")) continue;
+            if (STOP_WORDS.contains(tokens[i].toLowerCase(Locale.ROOT).replace('\u2019', '\''))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Base confidence of the rule, reduced when the captured argument looks like it carries more
+     * than a place name (time words, many tokens) since the LLM handles those better.
+     */
+    private static double score(IntentRule rule, String prompt, String argument) {
+        double score = rule.confidence();
+        if (FUTURE.matcher(argument).find()) {
+            score *= 0.5;
+        }
+        if (COMPOUND.matcher(argument).find()) {
+            score *= 0.5;
+        }
+
+        int words = argument.split("\\s+").length;
+        if (words > 3) {
+            score *= Math.max(0.4, 1.0 - 0.1 * (words - 3));
+        }
+
+        // the argument should be a meaningful part of the prompt, not a stray word in a sentence
+        double coverage = (double) argument.length() / prompt.length();
+        if (coverage < 0.15) {
+            score *= 0.8;
+        }
+        return score;
+    }
+
+    /**
+     * @param capitalized the captured argument must start with a capital letter
+     */
+    private record IntentRule(String toolName, String argumentName, double confidence, boolean capitalized, Pattern pattern) {}
+}
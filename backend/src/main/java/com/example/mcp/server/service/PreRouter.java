@@ -0,0 +1,13 @@
+package com.example.mcp.server.service;
+
+import java.util.Optional;
+
+import com.example.mcp.server.model.ToolDecision;
+
+/**
+ * Cheap in-process routing stage tried before the LLM router. Implementations return a decision
+ * only when they are confident; an empty result hands the prompt on to the next stage.
+ */
+public interface PreRouter {
+    Optional<ToolDecision> tryRoute(String prompt);
+}
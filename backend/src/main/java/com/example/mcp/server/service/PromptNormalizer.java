@@ -0,0 +1,68 @@
+package com.example.mcp.server.service;
+
+/**
+ * Canonical form of a user prompt used as a cache key: lower case, punctuation dropped and
+ * whitespace collapsed, so "Weather in London?" and "weather  in london" share one entry.
+ * Symbols are kept, so "what is 2+2" and "what is 2*2" don't.
+ */
+public final class PromptNormalizer {
+    /** ASCII punctuation that reads as an operator or symbol in prompts, e.g. "c#", "50%", "6/3". */
+    private static final String MEANINGFUL_PUNCTUATION = "#%&*-/@\\";
+
+    private PromptNormalizer() {}
+
+    public static String normalize(String prompt) {
+        if (prompt == null) return "";
+
+        StringBuilder sb = new StringBuilder(prompt.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < prompt.length(); ) {
+            int cp = prompt.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp) || isDropped(cp)) {
+                pendingSpace = true;
+            } else {
+                if (pendingSpace && !sb.isEmpty()) sb.append(' ');
+                pendingSpace = false;
+                sb.appendCodePoint(Character.toLowerCase(cp));
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Punctuation and invisible characters; letters, digits, symbols and marks are kept. */
+    private static boolean isDropped(int cp) {
+        return switch (Character.getType(cp)) {
+            case Character.CONNECTOR_PUNCTUATION, Character.DASH_PUNCTUATION, Character.START_PUNCTUATION,
+                 Character.END_PUNCTUATION, Character.INITIAL_QUOTE_PUNCTUATION, Character.FINAL_QUOTE_PUNCTUATION,
+                 Character.OTHER_PUNCTUATION -> MEANINGFUL_PUNCTUATION.indexOf(cp) < 0;
+            case Character.CONTROL, Character.FORMAT -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Lower case and whitespace collapsed, every other character kept, so "what is c++" and
+     * "what is c" stay apart. For keys whose cached value is the answer itself.
+     */
+    public static String foldCaseAndSpace(String prompt) {
+        if (prompt == null) return "";
+
+        StringBuilder sb = new StringBuilder(prompt.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < prompt.length(); ) {
+            int cp = prompt.codePointAt(i);
+            i += Character.charCount(cp);
+
+            if (Character.isWhitespace(cp) || Character.isSpaceChar(cp)) {
+                pendingSpace = true;
+            } else {
+                if (pendingSpace && !sb.isEmpty()) sb.append(' ');
+                pendingSpace = false;
+                sb.appendCodePoint(Character.toLowerCase(cp));
+            }
+        }
+        return sb.toString();
+    }
+}
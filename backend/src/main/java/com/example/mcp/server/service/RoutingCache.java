@@ -0,0 +1,129 @@
+package com.example.mcp.server.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolMethod;
+import com.example.mcp.server.tools.ToolRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded LRU cache of routing decisions keyed by the normalized prompt, with a TTL per entry.
+ * Only tool decisions are cached; direct answers and LLM errors always go back to the router,
+ * and tools can opt out with {@code @ToolPolicy(cacheRouting = false)}. Arguments that echo the prompt,
+ * like askChat's, are re-bound to the prompt of the hit, since prompts sharing a key still differ in
+ * case and punctuation.
+ */
+@Slf4j
+@Component
+public class RoutingCache {
+    private final ToolRegistry toolRegistry;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final Map<String, CachedDecision> entries;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public RoutingCache(ToolRegistry toolRegistry,
+                        MeterRegistry meterRegistry,
+                        @Value("${mcp.routing.cache.enabled:true}") boolean enabled,
+                        @Value("${mcp.routing.cache.max-size:10000}") int maxSize,
+                        @Value("${mcp.routing.cache.ttl:10m}") Duration ttl) {
+        this.toolRegistry = toolRegistry;
+        this.enabled = enabled;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("mcp.routing.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("mcp.routing.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("mcp.routing.cache.evictions").tag("cause", "size").register(meterRegistry);
+        this.expiredEvictions = Counter.builder("mcp.routing.cache.evictions").tag("cause", "expired").register(meterRegistry);
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDecision> eldest) {
+                if (size() > maxSize) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("mcp.routing.cache.size", this, RoutingCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Look up a cached decision for the prompt.
+     *
+     * @return the cached decision or null on a miss
+     */
+    public ToolDecision get(String prompt) {
+        if (!enabled) return null;
+
+        String key = PromptNormalizer.normalize(prompt);
+        synchronized (entries) {
+            CachedDecision entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.increment();
+                return entry.bind(prompt);
+            }
+            if (entry != null) {
+                entries.remove(key);
+                expiredEvictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Remember a routing decision if its tool allows it.
+     */
+    public void put(String prompt, ToolDecision decision) {
+        if (!enabled || decision.toolName() == null || decision.arguments() == null) return;
+
+        ToolMethod toolMethod = toolRegistry.getTool(decision.toolName());
+        if (toolMethod == null || !toolMethod.policy().cacheRouting()) return;
+
+        ToolDecision frozen = new ToolDecision(decision.toolName(),
+                                               Collections.unmodifiableMap(new LinkedHashMap<>(decision.arguments())));
+        Set<String> promptArguments = new HashSet<>();
+        frozen.arguments().forEach((name, value) -> {
+            if (value instanceof String text && prompt != null && text.strip().equals(prompt.strip())) promptArguments.add(name);
+        });
+        String key = PromptNormalizer.normalize(prompt);
+        synchronized (entries) {
+            entries.put(key, new CachedDecision(frozen, Set.copyOf(promptArguments), System.nanoTime() + ttlNanos));
+        }
+        log.debug("Cached routing decision for '{}' -> {}", key, decision.toolName());
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @param promptArguments names of arguments whose value was the prompt itself
+     */
+    private record CachedDecision(ToolDecision decision, Set<String> promptArguments, long expiresAt) {
+        ToolDecision bind(String prompt) {
+            if (promptArguments.isEmpty()) return decision;
+            Map<String, Object> arguments = new LinkedHashMap<>(decision.arguments());
+            promptArguments.forEach(name -> arguments.put(name, prompt));
+            return new ToolDecision(decision.toolName(), Collections.unmodifiableMap(arguments));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.mcp.server.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.example.mcp.server.model.ToolMethod;
+import com.example.mcp.server.model.ToolParameter;
+import com.example.mcp.server.tools.ToolRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * The router's system prompt, generated from the {@link ToolRegistry} so it always lists exactly the
+ * registered tools. One line per tool, sorted by name:
+ * <pre>
+ * bookEvent(title:string, startIsoUtc:string "Start in ISO-8601 UTC", durationMin?:int "Duration in minutes"): Book a ...
+ * </pre>
+ * The text only changes when the registry does, and everything call-specific (plan or batch
+ * instructions, the user prompt) comes after it, so every routing request starts with the same bytes
+ * and providers can serve that prefix from their prompt cache.
+ */
+@Slf4j
+@Component
+public class ToolCatalog {
+    private static final String HEADER = """
+            You route user requests to tools. Reply ONLY with JSON, no other text:
+            {"toolName": "<tool>", "arguments": {"<parameter>": <value>}}
+            or, when no tool fits, {"toolName": null, "arguments": {"answer": "<your answer>"}}
+            Tools, as name(parameter:type, optional?:type "hint"): description
+            """;
+
+    private final ToolRegistry toolRegistry;
+
+    private volatile Snapshot snapshot = new Snapshot(-1, HEADER);
+
+    public ToolCatalog(ToolRegistry toolRegistry) {
+        this.toolRegistry = toolRegistry;
+    }
+
+    /**
+     * System prompt for routing calls, rebuilt only after the registry changed.
+     */
+    public String routerPrompt() {
+        Snapshot current = snapshot;
+        int version = toolRegistry.getVersion();
+        if (current.version != version) {
+            current = new Snapshot(version, render(toolRegistry.getTools().values()));
+            snapshot = current;
+            log.info("Routing prompt rebuilt for {} tools: {} bytes", toolRegistry.getTools().size(),
+                     current.prompt.getBytes(StandardCharsets.UTF_8).length);
+        }
+        return current.prompt;
+    }
+
+    static String render(Collection<ToolMethod> tools) {
+        StringBuilder prompt = new StringBuilder(HEADER);
+        List<ToolMethod> sorted = tools.stream().sorted(Comparator.comparing(ToolMethod::name)).toList();
+        for (ToolMethod tool : sorted) {
+            prompt.append(tool.name()).append('(');
+            List<ToolParameter> parameters = tool.parameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                ToolParameter parameter = parameters.get(i);
+                if (i > 0) prompt.append(", ");
+                prompt.append(parameter.name()).append(parameter.required() ? ":" : "?:").append(typeName(parameter.type()));
+                if (!parameter.description().isBlank()) {
+                    prompt.append(" \"").append(oneLine(parameter.description())).append('"');
+                }
+            }
+            prompt.append(')');
+            if (!tool.description().isBlank()) {
+                prompt.append(": ").append(oneLine(tool.description()));
+            }
+            prompt.append('\n');
+        }
+        return prompt.toString();
+    }
+
+    private static String typeName(Class<?> type) {
+        if (type == String.class || type == char.class || type == Character.class) return "string";
+        if (type == boolean.class || type == Boolean.class) return "bool";
+        if (type == int.class || type == Integer.class || type == long.class || type == Long.class
+            || type == short.class || type == Short.class || type == byte.class || type == Byte.class) return "int";
+        if (type.isPrimitive() || Number.class.isAssignableFrom(type)) return "number";
+        if (type.isArray() || Collection.class.isAssignableFrom(type)) return "array";
+        if (Map.class.isAssignableFrom(type)) return "object";
+        // enums, dates and the like are bound from their text form
+        return "string";
+    }
+
+    private static String oneLine(String text) {
+        return text.strip().replaceAll("\\s+", " ");
+    }
+
+    private record Snapshot(int version, String prompt) {}
+}
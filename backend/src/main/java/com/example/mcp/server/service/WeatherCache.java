@@ -0,0 +1,375 @@
+package com.example.mcp.server.service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import com.example.mcp.server.helper.QuotaScheduler;
+import com.example.mcp.server.helper.UpstreamClients;
+import com.example.mcp.server.model.RequestPriority;
+import com.example.mcp.server.model.WeatherReading;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * City-keyed cache in front of OpenWeather.
+ * <ul>
+ *   <li>Readings are served from memory while younger than the freshness window.</li>
+ *   <li>Popular cities are refreshed in the background shortly before they expire, so hot lookups
+ *       never wait on the network.</li>
+ *   <li>Misses arriving within the batch window are collected and fetched together; identical misses
+ *       share one request. Cities whose OpenWeather id is already known go out as one multi-city
+ *       group request, since the group endpoint only accepts ids.</li>
+ * </ul>
+ * Both upstream URLs are configurable, so the fetch path can run against a local stub server.
+ */
+@Slf4j
+@Component
+public class WeatherCache {
+    /** OpenWeather accepts at most 20 city ids per group request. */
+    private static final int GROUP_LIMIT = 20;
+    private static final int NAME_LOOKUP_CONCURRENCY = 8;
+
+    private final WebClient webClient;
+    private final long freshnessMillis;
+    private final long refreshAheadMillis;
+    private final Duration batchWindow;
+    private final Duration refreshInterval;
+    private final int maxCities;
+    private final int popularMinHits;
+
+    @Value("${openweather.api.url}")
+    private String weatherApiUrl;
+
+    @Value("${openweather.api.group-url:}")
+    private String groupApiUrl;
+
+    @Value("${openweather.api.key}")
+    private String weatherApiKey;
+
+    private final Map<String, CachedReading> readings = new ConcurrentHashMap<>();
+
+    private final Object batchLock = new Object();
+    private final Map<String, Sinks.One<WeatherReading>> inFlight = new HashMap<>();
+    private Map<String, String> queued = new LinkedHashMap<>();
+    private boolean flushScheduled;
+    private Disposable refresher;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshes;
+    private final Counter singleRequests;
+    private final Counter groupRequests;
+    private final DistributionSummary batchSize;
+
+    public WeatherCache(UpstreamClients upstreamClients,
+                        MeterRegistry meterRegistry,
+                        @Value("${mcp.weather.cache.freshness:10m}") Duration freshness,
+                        @Value("${mcp.weather.cache.refresh-ahead:2m}") Duration refreshAhead,
+                        @Value("${mcp.weather.cache.batch-window:25ms}") Duration batchWindow,
+                        @Value("${mcp.weather.cache.refresh-interval:30s}") Duration refreshInterval,
+                        @Value("${mcp.weather.cache.max-cities:1000}") int maxCities,
+                        @Value("${mcp.weather.cache.popular-min-hits:3}") int popularMinHits) {
+        this.webClient = upstreamClients.builder("openweather").build();
+        this.freshnessMillis = freshness.toMillis();
+        this.refreshAheadMillis = refreshAhead.toMillis();
+        this.batchWindow = batchWindow;
+        this.refreshInterval = refreshInterval;
+        this.maxCities = maxCities;
+        this.popularMinHits = popularMinHits;
+
+        this.hits = Counter.builder("mcp.weather.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("mcp.weather.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.refreshes = Counter.builder("mcp.weather.cache.refreshes").register(meterRegistry);
+        this.singleRequests = Counter.builder("mcp.weather.upstream.requests").tag("kind", "single").register(meterRegistry);
+        this.groupRequests = Counter.builder("mcp.weather.upstream.requests").tag("kind", "group").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("mcp.weather.batch.size")
+                                            .description("Distinct cities fetched per batch window")
+                                            .register(meterRegistry);
+        Gauge.builder("mcp.weather.cache.size", readings, Map::size).register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startRefresher() {
+        refresher = Flux.interval(refreshInterval, refreshInterval)
+                        .onBackpressureDrop()
+                        .subscribe(tick -> {
+                            try {
+                                refreshAhead();
+                            } catch (Exception e) {
+                                log.warn("Weather refresh-ahead pass failed", e);
+                            }
+                        });
+    }
+
+    @PreDestroy
+    void stopRefresher() {
+        if (refresher != null) {
+            refresher.dispose();
+        }
+    }
+
+    /**
+     * Current weather for a sanitized city name.
+     *
+     * @return the reading, empty if OpenWeather does not know the city
+     */
+    public Mono<WeatherReading> get(String city) {
+        final String key = city.toLowerCase(Locale.ROOT);
+        final CachedReading cached = readings.get(key);
+        if (cached != null && cached.ageMillis(System.currentTimeMillis()) < freshnessMillis) {
+            cached.touch();
+            hits.increment();
+            return Mono.just(cached.reading);
+        }
+
+        misses.increment();
+        return enqueue(key, city);
+    }
+
+    private Mono<WeatherReading> enqueue(String key, String city) {
+        Sinks.One<WeatherReading> sink;
+        boolean openWindow = false;
+        synchronized (batchLock) {
+            sink = inFlight.get(key);
+            if (sink == null) {
+                sink = Sinks.one();
+                inFlight.put(key, sink);
+                queued.put(key, city);
+                if (!flushScheduled) {
+                    flushScheduled = true;
+                    openWindow = true;
+                }
+            }
+        }
+
+        if (openWindow) {
+            Mono.delay(batchWindow).subscribe(tick -> flush());
+        }
+        return sink.asMono();
+    }
+
+    private void flush() {
+        Map<String, String> batch;
+        synchronized (batchLock) {
+            batch = queued;
+            queued = new LinkedHashMap<>();
+            flushScheduled = false;
+        }
+        batchSize.record(batch.size());
+        fetch(batch, RequestPriority.INTERACTIVE);
+    }
+
+    /**
+     * Refresh popular entries that are about to expire and drop cities nobody asked for in a while.
+     */
+    private void refreshAhead() {
+        final long now = System.currentTimeMillis();
+        final Map<String, String> due = new LinkedHashMap<>();
+
+        readings.forEach((key, cached) -> {
+            long age = cached.ageMillis(now);
+            if (age > 2 * freshnessMillis && now - cached.lastAccess > freshnessMillis) {
+                readings.remove(key, cached);
+            } else if (age >= freshnessMillis - refreshAheadMillis
+                       && cached.hits.get() >= popularMinHits
+                       && cached.refreshing.compareAndSet(false, true)) {
+                due.put(key, cached.query);
+            }
+        });
+        trimToCapacity();
+
+        if (!due.isEmpty()) {
+            log.debug("Refreshing {} popular cities ahead of expiry", due.size());
+            refreshes.increment(due.size());
+            fetch(due, RequestPriority.BACKGROUND);
+        }
+    }
+
+    private void trimToCapacity() {
+        int excess = readings.size() - maxCities;
+        if (excess <= 0) return;
+
+        readings.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastAccess))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(readings::remove);
+    }
+
+    /**
+     * Fetch the given cities (key -> city as typed), using one group request per 20 known ids and
+     * individual by-name requests for cities seen for the first time. {@code priority} orders the calls
+     * against the OpenWeather quota, so refresh-ahead never delays a caller waiting for a miss.
+     */
+    private void fetch(Map<String, String> cities, RequestPriority priority) {
+        if (cities.isEmpty()) return;
+
+        final Map<Long, String> keysById = new LinkedHashMap<>();
+        final Map<String, String> byName = new LinkedHashMap<>();
+        final boolean groupEnabled = groupApiUrl != null && !groupApiUrl.isBlank();
+
+        cities.forEach((key, city) -> {
+            CachedReading previous = readings.get(key);
+            if (groupEnabled && previous != null && previous.reading.cityId() > 0) {
+                keysById.put(previous.reading.cityId(), key);
+            } else {
+                byName.put(key, city);
+            }
+        });
+
+        final List<Long> ids = new ArrayList<>(keysById.keySet());
+        for (int from = 0; from < ids.size(); from += GROUP_LIMIT) {
+            resolveGroup(new ArrayList<>(ids.subList(from, Math.min(from + GROUP_LIMIT, ids.size()))), keysById, priority);
+        }
+
+        Flux.fromIterable(byName.entrySet())
+            .flatMap(e -> fetchOne(e.getValue(), priority)
+                            .doOnNext(reading -> store(e.getKey(), e.getValue(), reading))
+                            .doOnError(error -> settle(e.getKey(), sink -> sink.tryEmitError(error)))
+                            .doOnSuccess(reading -> settle(e.getKey(), Sinks.One::tryEmitEmpty))
+                            .onErrorResume(error -> Mono.empty()),
+                     NAME_LOOKUP_CONCURRENCY)
+            .subscribe();
+    }
+
+    private void resolveGroup(List<Long> ids, Map<Long, String> keysById, RequestPriority priority) {
+        final Set<String> unresolved = ids.stream().map(keysById::get).collect(Collectors.toCollection(HashSet::new));
+
+        fetchGroup(ids, priority).subscribe(
+                reading -> {
+                    String key = keysById.get(reading.cityId());
+                    if (key != null && unresolved.remove(key)) {
+                        CachedReading previous = readings.get(key);
+                        store(key, previous != null ? previous.query : reading.city(), reading);
+                    }
+                },
+                error -> unresolved.forEach(key -> settle(key, sink -> sink.tryEmitError(error))),
+                () -> unresolved.forEach(key -> settle(key, Sinks.One::tryEmitEmpty)));
+    }
+
+    private Mono<WeatherReading> fetchOne(String city, RequestPriority priority) {
+        singleRequests.increment();
+        final String encodedCity = URLEncoder.encode(city, StandardCharsets.UTF_8);
+        final URI uri = URI.create(weatherApiUrl + "?q=" + encodedCity + "&appid=" + weatherApiKey + "&units=metric");
+
+        return webClient.get()
+                        .uri(uri)
+                        .attribute(QuotaScheduler.PRIORITY_ATTRIBUTE, priority)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .mapNotNull(resp -> toReading(new JSONObject(resp), city));
+    }
+
+    private Flux<WeatherReading> fetchGroup(List<Long> ids, RequestPriority priority) {
+        groupRequests.increment();
+        final String idList = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+        final URI uri = URI.create(groupApiUrl + "?id=" + idList + "&appid=" + weatherApiKey + "&units=metric");
+
+        return webClient.get()
+                        .uri(uri)
+                        .attribute(QuotaScheduler.PRIORITY_ATTRIBUTE, priority)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .flatMapIterable(resp -> {
+                            JSONArray list = new JSONObject(resp).optJSONArray("list");
+                            List<WeatherReading> result = new ArrayList<>();
+                            for (int i = 0; list != null && i < list.length(); i++) {
+                                WeatherReading reading = toReading(list.getJSONObject(i), null);
+                                if (reading != null) result.add(reading);
+                            }
+                            return result;
+                        });
+    }
+
+    private static WeatherReading toReading(JSONObject json, String requestedCity) {
+        if (!json.has("main")) {
+            return null;
+        }
+        return new WeatherReading(
+                json.optString("name", requestedCity),
+                json.optLong("id", 0L),
+                json.getJSONObject("main").getDouble("temp"),
+                json.getJSONArray("weather").getJSONObject(0).getString("description"),
+                Instant.now());
+    }
+
+    private void store(String key, String query, WeatherReading reading) {
+        readings.put(key, new CachedReading(query, reading, System.currentTimeMillis()));
+        settle(key, sink -> sink.tryEmitValue(reading));
+    }
+
+    /**
+     * Complete the waiters of a queued miss, if any. Background refreshes have no waiters, but a failed
+     * or empty one must release the entry so the next refresh-ahead pass can try again.
+     */
+    private void settle(String key, Consumer<Sinks.One<WeatherReading>> completion) {
+        CachedReading cached = readings.get(key);
+        if (cached != null) {
+            cached.refreshing.set(false);
+        }
+        Sinks.One<WeatherReading> sink;
+        synchronized (batchLock) {
+            sink = inFlight.remove(key);
+        }
+        if (sink != null) {
+            completion.accept(sink);
+        }
+    }
+
+    private static final class CachedReading {
+        private final String query;
+        private final WeatherReading reading;
+        private final long fetchedAt;
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile long lastAccess;
+
+        private CachedReading(String query, WeatherReading reading, long fetchedAt) {
+            this.query = query;
+            this.reading = reading;
+            this.fetchedAt = fetchedAt;
+            this.lastAccess = fetchedAt;
+        }
+
+        private long ageMillis(long now) {
+            return now - fetchedAt;
+        }
+
+        private void touch() {
+            hits.incrementAndGet();
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
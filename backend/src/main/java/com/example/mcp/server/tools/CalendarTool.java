@@ -1,65 +1,48 @@
 package com.example.mcp.server.tools;
 
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
-import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.Date;
-import java.util.List;
-
-import com.example.mcp.server.helper.AuthCodeApp;
-import com.google.api.client.auth.oauth2.Credential;
-import com.google.api.client.googleapis.auth.oauth2.GoogleAuthorizationCodeFlow;
-import com.google.api.client.googleapis.auth.oauth2.GoogleClientSecrets;
-import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
-import com.google.api.client.json.JsonFactory;
-import com.google.api.client.json.gson.GsonFactory;
+
+import com.example.mcp.server.helper.CalendarBusyIndex;
+import com.example.mcp.server.helper.CalendarClientManager;
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.helper.ToolFailureException;
 import com.google.api.client.util.DateTime;
-import com.google.api.client.util.store.FileDataStoreFactory;
 import com.google.api.services.calendar.Calendar;
 import com.google.api.services.calendar.model.Event;
 import com.google.api.services.calendar.model.EventDateTime;
 import com.google.api.services.calendar.model.Events;
 import org.springframework.ai.tool.annotation.Tool;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 @Component
 public class CalendarTool {
-    private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
     private static final ZoneId TIMEZONE = ZoneId.of("Europe/London");
 
-    @Value("${google.credentials.path:credentials.json}")
-    private String credentialsFilePath;
-
-    private Calendar getService() throws Exception {
-        final var httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-        final var clientSecrets = GoogleClientSecrets.load(
-                JSON_FACTORY, new InputStreamReader(new FileInputStream(credentialsFilePath))
-        );
-
-        final var flow = new GoogleAuthorizationCodeFlow.Builder(
-                httpTransport, JSON_FACTORY, clientSecrets,
-                List.of("https://www.googleapis.com/auth/calendar")
-        )
-                .setDataStoreFactory(new FileDataStoreFactory(Paths.get("tokens").toFile()))
-                .setAccessType("offline")
-                .build();
+    private final CalendarClientManager clientManager;
+    private final McpMetrics metrics;
+    private final CalendarBusyIndex busyIndex;
 
-        final Credential credential = new AuthCodeApp(flow).authorize("user");
-
-        return new Calendar.Builder(httpTransport, JSON_FACTORY, credential)
-                .setApplicationName("MCP Calendar")
-                .build();
+    public CalendarTool(CalendarClientManager clientManager, McpMetrics metrics, CalendarBusyIndex busyIndex) {
+        this.clientManager = clientManager;
+        this.metrics = metrics;
+        this.busyIndex = busyIndex;
     }
 
+    // "tomorrow at 3 PM" resolves to a different instant every day, never reuse a cached routing decision.
+    // The Google client is synchronous, so bookings run on the blocking-tool lane.
+    // Every call books an event, so identical requests in a batch are each executed.
+    @ToolPolicy(cacheRouting = false, blocking = true, idempotent = false)
     @Tool(name = "bookEvent", description = "Book a Google Calendar event with title and start datetime (ISO format)")
-    public Flux<String> bookEvent(String title, String startIsoUtc, int durationMin) {
+    public Flux<String> bookEvent(String title,
+                                  @ToolParam(description = "Start in ISO-8601 UTC, e.g. 2025-10-19T12:00:00Z") String startIsoUtc,
+                                  @ToolParam(required = false, description = "Duration in minutes") int durationMin) {
         try {
-            final Calendar service = getService();
+            final Calendar service = clientManager.getService();
 
             final Instant instant = Instant.parse(startIsoUtc);
             final ZonedDateTime startZoned = instant.atZone(TIMEZONE);
@@ -68,34 +51,53 @@ public class CalendarTool {
             final DateTime startDt = new DateTime(Date.from(startZoned.toInstant()));
             final DateTime endDt = new DateTime(Date.from(endZoned.toInstant()));
 
-            final Events existing = service.events().list("primary")
-                                           .setTimeMin(startDt)
-                                           .setTimeMax(endDt)
-                                           .setSingleEvents(true)
-                                           .execute();
-
-            if (!existing.getItems().isEmpty()) {
-                String conflictMessage = "Conflict: already booked event '" + existing.getItems().get(0).getSummary() + "'";
-                return Flux.fromStream(conflictMessage.chars().mapToObj(c -> String.valueOf((char)c)))
-                        .delayElements(java.time.Duration.ofMillis(20));
+            // Conflicts are checked against the local busy index; Google is only asked when the index
+            // cannot vouch for the slot (not synced yet, stale, or beyond the synced horizon).
+            final CalendarBusyIndex.Reservation reservation =
+                    busyIndex.reserve(startDt.getValue(), endDt.getValue(), title);
+            if (reservation.conflict() != null) {
+                return Flux.just(conflict(reservation.conflict().summary()));
             }
 
-            final Event event = new Event()
-                    .setSummary(title)
-                    .setStart(new EventDateTime().setDateTime(startDt).setTimeZone(TIMEZONE.toString()))
-                    .setEnd(new EventDateTime().setDateTime(endDt).setTimeZone(TIMEZONE.toString()))
-                    .setDescription("Created via MCP");
-
-            final Event created = service.events().insert("primary", event).execute();
+            final Event created;
+            try {
+                if (reservation.verify()) {
+                    final Events existing = metrics.timeUpstream("google-calendar",
+                            service.events().list("primary")
+                                   .setTimeMin(startDt)
+                                   .setTimeMax(endDt)
+                                   .setSingleEvents(true)::execute);
+                    clientManager.recordSuccess();
+
+                    if (!existing.getItems().isEmpty()) {
+                        return Flux.just(conflict(existing.getItems().get(0).getSummary()));
+                    }
+                }
+
+                final Event event = new Event()
+                        .setSummary(title)
+                        .setStart(new EventDateTime().setDateTime(startDt).setTimeZone(TIMEZONE.toString()))
+                        .setEnd(new EventDateTime().setDateTime(endDt).setTimeZone(TIMEZONE.toString()))
+                        .setDescription("Created via MCP");
+
+                created = metrics.timeUpstream("google-calendar",
+                        service.events().insert("primary", event)::execute);
+                clientManager.recordSuccess();
+                busyIndex.commit(reservation, created);
+            } finally {
+                // no-op once committed
+                busyIndex.release(reservation);
+            }
 
             String message = "Event booked successfully: " + created.getHtmlLink();
-            return Flux.fromStream(message.chars().mapToObj(c -> String.valueOf((char)c)))
-                    .delayElements(java.time.Duration.ofMillis(20));
+            return Flux.just(message);
 
         } catch (Exception ex) {
-            String errorMessage = "Calendar error: " + ex.getMessage();
-            return Flux.fromStream(errorMessage.chars().mapToObj(c -> String.valueOf((char)c)))
-                    .delayElements(java.time.Duration.ofMillis(20));
+            return Flux.error(new ToolFailureException("Calendar error: " + ex.getMessage(), ex));
         }
     }
+
+    private static String conflict(String summary) {
+        return "Conflict: already booked event '" + summary + "'";
+    }
 }
@@ -1,9 +1,20 @@
 package com.example.mcp.server.tools;
 
+import com.example.mcp.server.helper.QuotaScheduler;
+import com.example.mcp.server.helper.ToolFailureException;
+import com.example.mcp.server.helper.UpstreamClients;
+import com.example.mcp.server.model.RequestPriority;
+import com.example.mcp.server.service.AnswerStore;
+import com.example.mcp.server.service.ChatCompletionDecoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
@@ -11,11 +22,21 @@ import reactor.core.publisher.Flux;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Component
 public class ChatTool {
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final String DONE_MARKER = "[DONE]";
+    private static final String ERROR_PREFIX = "Chat error: ";
+    private static final String EMPTY_ANSWER = "LLM returned empty answer.";
+
     private final WebClient webClient;
+    private final ChatCompletionDecoder decoder;
+    private final AnswerStore answerStore;
+    private final ObjectMapper mapper = new ObjectMapper();
 
     @Value("${openrouter.api.url}")
     private String chatUrl;
@@ -26,8 +47,13 @@ public class ChatTool {
     @Value("${openrouter.model}")
     private String model;
 
-    public ChatTool(WebClient.Builder builder) {
-        this.webClient = builder.build();
+    @Value("${openrouter.chat.streaming:true}")
+    private boolean streaming;
+
+    public ChatTool(UpstreamClients upstreamClients, ChatCompletionDecoder decoder, AnswerStore answerStore) {
+        this.webClient = upstreamClients.builder("openrouter").build();
+        this.decoder = decoder;
+        this.answerStore = answerStore;
     }
 
     @Tool(name = "askChat", description = "Ask a general question to the LLM.")
@@ -36,47 +62,124 @@ public class ChatTool {
             return Flux.just("No OpenRouter API key configured.");
         }
 
+        Flux<String> answer = streaming ? askStreaming(prompt) : askBuffered(prompt);
+        if (!answerStore.isEnabled()) {
+            return answer;
+        }
+        // the store reads from disk, so the lookup runs off the event loop
+        return answerStore.lookup(model, prompt)
+                          .flux()
+                          .switchIfEmpty(remember(prompt, answer));
+    }
+
+    /**
+     * Pass the answer through and store it once it completed without errors; cancelled or failed
+     * answers are not kept.
+     */
+    private Flux<String> remember(String prompt, Flux<String> answer) {
+        return Flux.defer(() -> {
+            StringBuilder text = new StringBuilder();
+            AtomicBoolean failed = new AtomicBoolean();
+            return answer.doOnNext(chunk -> {
+                             if (chunk.equals(EMPTY_ANSWER)) failed.set(true);
+                             else text.append(chunk);
+                         })
+                         .doOnComplete(() -> {
+                             if (!failed.get() && !text.toString().isBlank()) answerStore.put(model, prompt, text.toString().strip());
+                         });
+        });
+    }
+
+    /**
+     * Sends the completion with {@code stream: true} and forwards every token delta as soon as
+     * the provider emits it, so nothing is buffered beyond the current SSE event.
+     */
+    private Flux<String> askStreaming(String prompt) {
         Map<String, Object> body = Map.of(
                 "model", model,
                 "messages", new Object[]{Map.of("role", "user", "content", prompt)},
-                "stream", false // important: disable streaming to get clean text
+                "stream", true
         );
         return webClient.post()
                 .uri(chatUrl)
+                .attribute(QuotaScheduler.PRIORITY_ATTRIBUTE, RequestPriority.INTERACTIVE)
                 .header("Authorization", "Bearer " + apiKey)
                 .contentType(MediaType.APPLICATION_JSON)
-                .accept(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
                 .bodyValue(body)
                 .retrieve()
-                .bodyToMono(Map.class)
+                .bodyToFlux(SSE_TYPE)
+                // OpenRouter sends ": OPENROUTER PROCESSING" comments as keep-alives, those carry no data
+                .mapNotNull(ServerSentEvent::data)
+                .takeWhile(data -> !DONE_MARKER.equals(data.trim()))
+                // idle timeout between two chunks rather than for the whole answer
                 .timeout(Duration.ofSeconds(60))
-                .flatMapMany(resp -> {
-                    try {
-                        // Extract assistant content from LLM response
-                        List<Map<String, Object>> choices = (List<Map<String, Object>>) resp.get("choices");
-                        if (choices == null || choices.isEmpty()) {
-                            return Flux.just("LLM returned no answer.");
-                        }
-
-                        Map<String, Object> choice = choices.get(0);
-                        Map<String, Object> message = (Map<String, Object>) choice.get("message");
-                        String content = message != null ? (String) message.get("content") : null;
+                .concatMapIterable(this::extractDelta)
+                .switchIfEmpty(Flux.just(EMPTY_ANSWER))
+                .onErrorMap(ChatTool::failure);
+    }
 
-                        if (content == null || content.isBlank()) {
-                            return Flux.just("LLM returned empty answer.");
-                        }
+    /**
+     * Reads the token delta out of one streamed chunk:
+     * {@code {"choices":[{"delta":{"content":"..."}}]}}.
+     */
+    private List<String> extractDelta(String data) {
+        final JsonNode chunk;
+        try {
+            chunk = mapper.readTree(data);
+        } catch (Exception ex) {
+            log.warn("Skipping unreadable chat chunk: {}", data);
+            return List.of();
+        }
 
-                        // Send one string. It is expected that UI will render it properly with paragraphs,
-                        // Markdown formatting, and spacing intact.
-                        final String text = content.trim();
-                        log.info("Chat Tool Response {}", text);
-                        return Flux.fromStream(text.chars().mapToObj(c -> String.valueOf((char) c)))
-                                .delayElements(Duration.ofMillis(20));
+        JsonNode error = chunk.path("error");
+        if (!error.isMissingNode()) {
+            throw new ToolFailureException(ERROR_PREFIX + error.path("message").asText(error.toString()), null);
+        }
+        JsonNode content = chunk.path("choices").path(0).path("delta").path("content");
+        return content.isTextual() && !content.asText().isEmpty() ? List.of(content.asText()) : List.of();
+    }
 
-                    } catch (Exception ex) {
-                        return Flux.just("Failed to parse chat response: " + ex.getMessage());
+    private Flux<String> askBuffered(String prompt) {
+        Map<String, Object> body = Map.of(
+                "model", model,
+                "messages", new Object[]{Map.of("role", "user", "content", prompt)},
+                "stream", false // important: disable streaming to get clean text
+        );
+        return webClient.post()
+                .uri(chatUrl)
+                .attribute(QuotaScheduler.PRIORITY_ATTRIBUTE, RequestPriority.INTERACTIVE)
+                .header("Authorization", "Bearer " + apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .as(decoder::decode)
+                .timeout(Duration.ofSeconds(60))
+                .map(completion -> {
+                    String content = completion.content();
+                    if (content == null || content.isBlank()) {
+                        if (completion.error() != null) {
+                            throw new ToolFailureException(ERROR_PREFIX + completion.error(), null);
+                        }
+                        return EMPTY_ANSWER;
                     }
+
+                    // Send one string. It is expected that UI will render it properly with paragraphs,
+                    // Markdown formatting, and spacing intact.
+                    final String text = content.trim();
+                    log.info("Chat Tool Response {}", text);
+                    return text;
                 })
-                .onErrorResume(ex -> Flux.just("Chat error: " + ex.getMessage()));
+                .flux()
+                .onErrorMap(ChatTool::failure);
+    }
+
+    /**
+     * Failures propagate to {@code ToolInvoker}, which times them as errors before showing the text.
+     */
+    private static Throwable failure(Throwable ex) {
+        return ex instanceof ToolFailureException ? ex : new ToolFailureException(ERROR_PREFIX + ex.getMessage(), ex);
     }
 }
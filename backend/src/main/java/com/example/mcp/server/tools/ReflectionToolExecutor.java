@@ -1,8 +1,8 @@
 package com.example.mcp.server.tools;
 
-import java.lang.reflect.Method;
 import java.util.Objects;
 
+import com.example.mcp.server.helper.BlockingToolScheduler;
 import com.example.mcp.server.model.ToolDecision;
 import com.example.mcp.server.model.ToolMethod;
 import org.springframework.stereotype.Component;
@@ -11,9 +11,11 @@ import reactor.core.publisher.Flux;
 @Component
 public class ReflectionToolExecutor implements ToolExecutor {
     private final ToolRegistry registry;
+    private final BlockingToolScheduler blockingToolScheduler;
 
-    public ReflectionToolExecutor(ToolRegistry registry) {
+    public ReflectionToolExecutor(ToolRegistry registry, BlockingToolScheduler blockingToolScheduler) {
         this.registry = registry;
+        this.blockingToolScheduler = blockingToolScheduler;
     }
 
     @Override
@@ -29,37 +31,33 @@ public class ReflectionToolExecutor implements ToolExecutor {
         }
 
         try {
-            final Method method = toolMethod.method();
-            final Object bean = toolMethod.bean();
+            final Object[] args = toolMethod.bindArguments(decision.arguments());
 
-            final Object[] args = mapArguments(method, decision);
-
-            for (int i = 0; i < args.length; i++) {
-                if (args[i] == null) {
-                    return Flux.just("Missing argument '" +
-                                     method.getParameters()[i].getName() +
-                                     "' for tool: " + decision.toolName());
-                }
+            final String missing = toolMethod.firstMissingArgument(args);
+            if (missing != null) {
+                return Flux.just("Missing argument '" + missing + "' for tool: " + decision.toolName());
             }
 
-            final Object result = method.invoke(bean, args);
-            if (result instanceof Flux<?> flux) {
-                return flux.map(Objects::toString);
-            }
-            if (result instanceof String str) {
-                return Flux.just(str);
+            if (toolMethod.blocking()) {
+                return blockingToolScheduler.run(decision.toolName(), () -> toolMethod.invoke(args))
+                                            .flatMapMany(ReflectionToolExecutor::toFlux)
+                                            .onErrorResume(e -> Flux.just("Error invoking tool: " + e.getMessage()));
             }
-
-            return Flux.just("Tool returned unknown type");
+            return toFlux(toolMethod.invoke(args));
 
         } catch (Exception e) {
             return Flux.just("Error invoking tool: " + e.getMessage());
         }
     }
 
-    private Object[] mapArguments(Method method, ToolDecision decision) {
-        return java.util.Arrays.stream(method.getParameters())
-                               .map(p -> decision.arguments().get(p.getName()))
-                               .toArray();
+    private static Flux<String> toFlux(Object result) {
+        if (result instanceof Flux<?> flux) {
+            return flux.map(Objects::toString);
+        }
+        if (result instanceof String str) {
+            return Flux.just(str);
+        }
+
+        return Flux.just("Tool returned unknown type");
     }
 }
@@ -0,0 +1,91 @@
+package com.example.mcp.server.tools;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.example.mcp.server.model.ToolMethod;
+import com.example.mcp.server.model.ToolParameter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.tool.annotation.Tool;
+import org.springframework.ai.tool.annotation.ToolParam;
+
+/**
+ * Turns a {@code @Tool} method into a {@link ToolMethod} once at registration: a method handle bound to
+ * the bean and spread over an {@code Object[]}, plus a typed binder per parameter. Invocations then
+ * need no reflection and no per-tool argument mapping.
+ */
+@Slf4j
+final class ToolMethodCompiler {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private ToolMethodCompiler() {}
+
+    static ToolMethod compile(String toolName, Object bean, Method method, ToolPolicy policy, boolean blocking)
+            throws IllegalAccessException {
+        final List<ToolParameter> parameters = new ArrayList<>();
+        for (Parameter p : method.getParameters()) {
+            if (!p.isNamePresent()) {
+                log.warn("Tool '{}' was compiled without -parameters, argument '{}' cannot be bound by name",
+                         toolName, p.getName());
+            }
+            ToolParam toolParam = p.getAnnotation(ToolParam.class);
+            boolean required = toolParam == null || toolParam.required();
+            String description = toolParam != null ? toolParam.description() : "";
+            parameters.add(new ToolParameter(p.getName(), p.getType(), required, description,
+                                             coercerFor(p.getName(), p.getType())));
+        }
+
+        final MethodHandle invoker = MethodHandles.publicLookup()
+                                                  .unreflect(method)
+                                                  .bindTo(bean)
+                                                  .asSpreader(Object[].class, parameters.size())
+                                                  .asType(INVOKER_TYPE);
+
+        final Tool tool = method.getAnnotation(Tool.class);
+        final String description = tool != null ? tool.description() : "";
+
+        return new ToolMethod(toolName, description, bean, method, policy, blocking, List.copyOf(parameters), invoker);
+    }
+
+    /**
+     * Conversion from what a JSON router produces (String, Number, Boolean, Map, List) to the declared type.
+     */
+    static Function<Object, Object> coercerFor(String name, Class<?> type) {
+        final Function<Object, Object> coercer;
+        if (type == String.class) {
+            coercer = Object::toString;
+        } else if (type == int.class || type == Integer.class) {
+            coercer = v -> v instanceof Number n ? n.intValue() : Integer.parseInt(v.toString().trim());
+        } else if (type == long.class || type == Long.class) {
+            coercer = v -> v instanceof Number n ? n.longValue() : Long.parseLong(v.toString().trim());
+        } else if (type == double.class || type == Double.class) {
+            coercer = v -> v instanceof Number n ? n.doubleValue() : Double.parseDouble(v.toString().trim());
+        } else if (type == float.class || type == Float.class) {
+            coercer = v -> v instanceof Number n ? n.floatValue() : Float.parseFloat(v.toString().trim());
+        } else if (type == boolean.class || type == Boolean.class) {
+            coercer = v -> v instanceof Boolean b ? b : Boolean.parseBoolean(v.toString().trim());
+        } else if (type == Instant.class) {
+            coercer = v -> v instanceof Number n ? Instant.ofEpochMilli(n.longValue()) : Instant.parse(v.toString().trim());
+        } else {
+            coercer = v -> type.isInstance(v) ? v : MAPPER.convertValue(v, type);
+        }
+
+        return value -> {
+            try {
+                return coercer.apply(value);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException(
+                        "Invalid value for '" + name + "' (expected " + type.getSimpleName() + "): " + value, e);
+            }
+        };
+    }
+}
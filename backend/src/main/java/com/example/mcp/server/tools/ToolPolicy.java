@@ -0,0 +1,35 @@
+package com.example.mcp.server.tools;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runtime policy for a {@code @Tool} method. On a type it applies to every tool of that bean unless the
+ * method declares its own; tools without either get the defaults.
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ToolPolicy {
+    /**
+     * Whether a routing decision for this tool may be cached and reused for a repeated prompt.
+     * Disable for tools whose arguments depend on when the prompt was sent (e.g. relative dates).
+     */
+    boolean cacheRouting() default true;
+
+    /**
+     * Whether the tool blocks its calling thread (synchronous SDK calls, file I/O). Blocking tools are
+     * invoked on the virtual-thread lane instead of the event loop that completed the routing call.
+     */
+    boolean blocking() default false;
+
+    /**
+     * Whether repeating a call with the same arguments has no further effect, so identical calls within
+     * one batch, or running at the same time, may share a single execution. Disable for tools that create
+     * something on every call.
+     */
+    boolean idempotent() default true;
+}
@@ -1,40 +1,132 @@
 package com.example.mcp.server.tools;
 
 import com.example.mcp.server.model.ToolMethod;
+import com.example.mcp.server.tools.index.ToolIndex;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.Method;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+@Slf4j
 @Component
 public class ToolRegistry implements SmartInitializingSingleton {
+    private static final ToolPolicy DEFAULT_POLICY = DefaultPolicy.class.getAnnotation(ToolPolicy.class);
+
     @Getter
     private final Map<String, ToolMethod> tools = new HashMap<>();
+    /** Bumped whenever a tool is (re-)registered, so derived data such as the routing prompt can be rebuilt. */
+    @Getter
+    private volatile int version;
     private final ApplicationContext context;
 
+    /** Tools treated as blocking even without {@code @ToolPolicy(blocking = true)}, e.g. third-party beans. */
+    @Value("${mcp.tools.blocking.names:}")
+    private Set<String> blockingTools;
+
+    /** Resolve tools from the compile-time index; false falls back to scanning every bean. */
+    @Value("${mcp.tools.index.enabled:true}")
+    private boolean indexEnabled;
+
     public ToolRegistry(ApplicationContext context) {
         this.context = context;
     }
 
     @Override
     public void afterSingletonsInstantiated() {
+        final long start = System.nanoTime();
+        final List<ToolIndex.Entry> index = indexEnabled ? ToolIndex.load(context.getClassLoader()) : List.of();
+
+        final String source;
+        if (!index.isEmpty() && registerFromIndex(index)) {
+            source = ToolIndex.LOCATION;
+        } else {
+            if (!index.isEmpty()) {
+                log.warn("Tool index is out of date with the compiled classes, scanning beans instead");
+                tools.clear();
+            }
+            scanContext();
+            source = "bean scan";
+        }
+        log.info("Registered {} tools from {} in {} µs", tools.size(), source, (System.nanoTime() - start) / 1_000);
+    }
+
+    /**
+     * Resolve only the beans named by the index; cost grows with the number of tools, not the context.
+     *
+     * @return false if an entry names a class or method that no longer exists, so the index cannot be trusted
+     */
+    private boolean registerFromIndex(List<ToolIndex.Entry> index) {
+        final ClassLoader classLoader = context.getClassLoader();
+        for (ToolIndex.Entry entry : index) {
+            try {
+                Class<?> beanClass = ClassUtils.forName(entry.beanClass(), classLoader);
+                Object bean = context.getBeanProvider(beanClass).getIfUnique();
+                if (bean == null) {
+                    log.debug("No unique bean of {} for indexed tool '{}'", entry.beanClass(), entry.name());
+                    continue;
+                }
+
+                Class<?>[] parameterTypes = new Class<?>[entry.parameterTypes().size()];
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    parameterTypes[i] = ClassUtils.forName(entry.parameterTypes().get(i), classLoader);
+                }
+                Method method = beanClass.getMethod(entry.methodName(), parameterTypes);
+                register(entry.name(), bean, method);
+            } catch (ClassNotFoundException | NoSuchMethodException e) {
+                log.warn("Stale tool index entry '{}': {}", entry.name(), e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void scanContext() {
         for (String beanName : context.getBeanDefinitionNames()) {
             Object bean = context.getBean(beanName);
             for (Method method : bean.getClass().getMethods()) {
                 if (method.isAnnotationPresent(Tool.class)) {
                     Tool toolAnnotation = method.getAnnotation(Tool.class);
-                    tools.put(toolAnnotation.name(), new ToolMethod(bean, method));
+                    register(toolAnnotation.name().isEmpty() ? method.getName() : toolAnnotation.name(), bean, method);
                 }
             }
         }
     }
 
+    private void register(String name, Object bean, Method method) {
+        ToolPolicy policy = resolvePolicy(bean, method);
+        boolean blocking = policy.blocking() || blockingTools.contains(name);
+        try {
+            tools.put(name, ToolMethodCompiler.compile(name, bean, method, policy, blocking));
+            version++;
+        } catch (IllegalAccessException e) {
+            log.error("Cannot register tool '{}': {} is not accessible", name, method, e);
+        }
+    }
+
+    private ToolPolicy resolvePolicy(Object bean, Method method) {
+        ToolPolicy policy = method.getAnnotation(ToolPolicy.class);
+        if (policy == null) {
+            policy = AnnotationUtils.findAnnotation(bean.getClass(), ToolPolicy.class);
+        }
+        return policy != null ? policy : DEFAULT_POLICY;
+    }
+
     public ToolMethod getTool(String name) {
         return tools.get(name);
     }
+
+    /** Carrier for the default {@link ToolPolicy} values of tools that don't declare one. */
+    @ToolPolicy
+    private static final class DefaultPolicy {}
 }
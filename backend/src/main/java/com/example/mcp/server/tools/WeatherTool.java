@@ -1,28 +1,21 @@
 package com.example.mcp.server.tools;
 
-import org.json.JSONObject;
+import com.example.mcp.server.helper.ToolFailureException;
+import com.example.mcp.server.service.WeatherCache;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 
-import java.net.URI;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-
 @Component
 public class WeatherTool {
-    private final WebClient webClient;
-
-    @Value("${openweather.api.url}")
-    private String weatherApiUrl;
+    private final WeatherCache weatherCache;
 
     @Value("${openweather.api.key}")
     private String weatherApiKey;
 
-    public WeatherTool(WebClient.Builder builder) {
-        this.webClient = builder.build();
+    public WeatherTool(WeatherCache weatherCache) {
+        this.weatherCache = weatherCache;
     }
 
     @Tool(name = "getWeather", description = "Gets current weather for a given city")
@@ -33,34 +26,24 @@ public class WeatherTool {
 
         try {
             final String sanitizedCity = city.replaceAll("[^a-zA-Z\\s]", "").trim();
-            final String encodedCity = URLEncoder.encode(sanitizedCity, StandardCharsets.UTF_8);
-            final URI uri = new URI(weatherApiUrl + "?q=" + encodedCity + "&appid=" + weatherApiKey + "&units=metric");
-
-            return webClient.get()
-                            .uri(uri)
-                            .retrieve()
-                            .bodyToMono(String.class)
-                            .flatMapMany(resp -> {
-                                JSONObject json = new JSONObject(resp);
-                                if (json.has("main")) {
-                                    String message = String.format(
-                                            "The current temperature in %s is %.1f °C. Further forecast: %s",
-                                            sanitizedCity,
-                                            json.getJSONObject("main").getDouble("temp"),
-                                            json.getJSONArray("weather").getJSONObject(0).getString("description")
-                                    );
 
-                                    return Flux.fromArray(message.split(" "))
-                                               .map(word -> word + " ")
-                                               .delayElements(java.time.Duration.ofMillis(80));
-                                } else {
-                                    return Flux.just("Could not fetch the weather for " + sanitizedCity);
-                                }
-                            })
-                            .onErrorResume(ex -> Flux.just("Weather error: " + ex.getMessage()));
+            return weatherCache.get(sanitizedCity)
+                               .map(reading -> String.format(
+                                       "The current temperature in %s is %.1f °C. Further forecast: %s",
+                                       sanitizedCity,
+                                       reading.temperature(),
+                                       reading.description()
+                               ))
+                               .defaultIfEmpty("Could not fetch the weather for " + sanitizedCity)
+                               .flux()
+                               .onErrorMap(WeatherTool::failure);
 
         } catch (Exception ex) {
-            return Flux.just("Weather error: " + ex.getMessage());
+            return Flux.error(failure(ex));
         }
     }
+
+    private static ToolFailureException failure(Throwable ex) {
+        return new ToolFailureException("Weather error: " + ex.getMessage(), ex);
+    }
 }
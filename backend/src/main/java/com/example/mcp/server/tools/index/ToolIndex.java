@@ -0,0 +1,105 @@
+package com.example.mcp.server.tools.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Compile-time index of {@code @Tool} methods written by {@link ToolIndexProcessor}.
+ * One line per tool: name, bean class, method name, comma-separated parameter types and description,
+ * separated by tabs.
+ */
+public final class ToolIndex {
+    public static final String LOCATION = "META-INF/mcp/tool-index";
+    static final String TOOL_ANNOTATION = "org.springframework.ai.tool.annotation.Tool";
+
+    private ToolIndex() {}
+
+    /**
+     * One indexed tool.
+     *
+     * @param beanClass binary name of the class declaring the method
+     * @param parameterTypes binary names of the erased parameter types, primitives by keyword
+     */
+    public record Entry(String name, String beanClass, String methodName, List<String> parameterTypes, String description) {}
+
+    /**
+     * Read every index on the classpath.
+     *
+     * @return indexed tools, empty if no index was generated (e.g. compiled without the processor)
+     */
+    public static List<Entry> load(ClassLoader classLoader) {
+        final List<Entry> entries = new ArrayList<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                    entries.addAll(read(reader));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + LOCATION, e);
+        }
+        return entries;
+    }
+
+    static List<Entry> read(BufferedReader reader) throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                entries.add(parse(line));
+            }
+        }
+        return entries;
+    }
+
+    static String format(Entry entry) {
+        return String.join("\t",
+                           entry.name(),
+                           entry.beanClass(),
+                           entry.methodName(),
+                           String.join(",", entry.parameterTypes()),
+                           escape(entry.description()));
+    }
+
+    private static Entry parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 5) {
+            throw new IllegalStateException("Malformed tool index line: " + line);
+        }
+        List<String> parameterTypes = fields[3].isEmpty() ? List.of() : List.of(fields[3].split(","));
+        return new Entry(fields[0], fields[1], fields[2], parameterTypes, unescape(fields[4]));
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(switch (next) {
+                    case 't' -> '\t';
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> next;
+                });
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.mcp.server.tools.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes {@link ToolIndex#LOCATION} listing every {@code @Tool} method of the module, so
+ * {@code ToolRegistry} can resolve just those beans instead of scanning the whole context.
+ * Registered for the main compilation in the backend pom.
+ * <p>
+ * An incremental or IDE build only compiles the changed classes, so the index already in the output
+ * directory is merged in: its entries are kept while their method still carries {@code @Tool}, and the
+ * entries of recompiled classes come from this compilation.
+ */
+@SupportedAnnotationTypes(ToolIndex.TOOL_ANNOTATION)
+public class ToolIndexProcessor extends AbstractProcessor {
+    private final List<ToolIndex.Entry> entries = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write();
+            return false;
+        }
+
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    entries.add(toEntry((ExecutableElement) element, annotation));
+                }
+            }
+        }
+        // not claimed: other processors may still look at @Tool
+        return false;
+    }
+
+    private ToolIndex.Entry toEntry(ExecutableElement method, TypeElement annotation) {
+        String name = "";
+        String description = "";
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            if (!mirror.getAnnotationType().asElement().equals(annotation)) continue;
+
+            Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                    processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : values.entrySet()) {
+                String attribute = value.getKey().getSimpleName().toString();
+                if (attribute.equals("name")) name = value.getValue().getValue().toString();
+                if (attribute.equals("description")) description = value.getValue().getValue().toString();
+            }
+        }
+        if (name.isEmpty()) {
+            name = method.getSimpleName().toString();
+        }
+
+        final TypeElement owner = (TypeElement) method.getEnclosingElement();
+        final List<String> parameterTypes = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            parameterTypes.add(typeName(parameter.asType()));
+        }
+
+        return new ToolIndex.Entry(name,
+                                   processingEnv.getElementUtils().getBinaryName(owner).toString(),
+                                   method.getSimpleName().toString(),
+                                   parameterTypes,
+                                   description);
+    }
+
+    /**
+     * Name of the erased type as {@code Class.forName} expects it, primitives by keyword.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (erased.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) processingEnv.getTypeUtils().asElement(erased);
+            return processingEnv.getElementUtils().getBinaryName(element).toString();
+        }
+        return erased.toString();
+    }
+
+    private void write() {
+        final Set<String> reindexed = new HashSet<>();
+        entries.forEach(entry -> reindexed.add(entry.beanClass()));
+        final Map<String, ToolIndex.Entry> merged = new LinkedHashMap<>();
+        for (ToolIndex.Entry entry : previousEntries()) {
+            if (!reindexed.contains(entry.beanClass()) && stillATool(entry)) merged.put(entry.name(), entry);
+        }
+        for (ToolIndex.Entry entry : entries) {
+            merged.put(entry.name(), entry);
+        }
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ToolIndex.LOCATION);
+            try (Writer writer = file.openWriter()) {
+                for (ToolIndex.Entry entry : merged.values()) {
+                    writer.write(ToolIndex.format(entry));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write tool index: " + e.getMessage());
+        }
+    }
+
+    /** The index left in the output directory by an earlier build, empty on a clean build. */
+    private List<ToolIndex.Entry> previousEntries() {
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ToolIndex.LOCATION);
+            try (Reader reader = file.openReader(true)) {
+                return ToolIndex.read(new BufferedReader(reader));
+            }
+        } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Whether the indexed method still exists with {@code @Tool}. Recompiled classes are seen as in their
+     * new source, the others as compiled, so removed tools and deleted classes drop out.
+     */
+    private boolean stillATool(ToolIndex.Entry entry) {
+        TypeElement owner = processingEnv.getElementUtils().getTypeElement(entry.beanClass().replace('$', '.'));
+        if (owner == null) return false;
+        for (Element member : owner.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD || !member.getSimpleName().contentEquals(entry.methodName())) continue;
+            for (AnnotationMirror mirror : member.getAnnotationMirrors()) {
+                TypeElement type = (TypeElement) mirror.getAnnotationType().asElement();
+                if (type.getQualifiedName().contentEquals(ToolIndex.TOOL_ANNOTATION)) return true;
+            }
+        }
+        return false;
+    }
+}
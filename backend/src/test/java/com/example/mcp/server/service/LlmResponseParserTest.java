@@ -0,0 +1,45 @@
+package com.example.mcp.server.service;
+
+import java.util.Map;
+
+import com.example.mcp.server.helper.McpMetrics;
+import com.example.mcp.server.model.ChatCompletion;
+import com.example.mcp.server.model.PlanStep;
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolPlan;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LlmResponseParserTest {
+    private final LlmResponseParser parser = new LlmResponseParser(new McpMetrics(new SimpleMeterRegistry()));
+
+    @Test
+    void nonObjectArgumentsDoNotDropLaterPlanSteps() {
+        String content = """
+                [{"id": "a", "toolName": "getWeather", "arguments": ["London", {"nested": [1]}], "dependsOn": []},
+                 {"id": "b", "toolName": {"odd": true}, "arguments": {"prompt": "hi"}},
+                 {"id": "c", "toolName": "askChat", "arguments": {"prompt": "hello"}}]
+                """;
+
+        ToolPlan plan = parser.parsePlan(new ChatCompletion(content, null, null)).block();
+
+        assertThat(plan.steps()).extracting(PlanStep::id).containsExactly("a", "b", "c");
+        assertThat(plan.steps().get(0).decision().arguments()).isEmpty();
+        assertThat(plan.steps().get(2).decision().arguments()).containsEntry("prompt", "hello");
+    }
+
+    @Test
+    void nonObjectArgumentsDoNotDropLaterBatchEntries() {
+        String content = """
+                [{"id": 1, "toolName": "getWeather", "arguments": ["London"]},
+                 {"id": 2, "toolName": "getWeather", "arguments": {"city": "Paris"}}]
+                """;
+
+        Map<Integer, ToolDecision> decisions = parser.parseBatch(new ChatCompletion(content, null, null));
+
+        assertThat(decisions).containsOnlyKeys(1, 2);
+        assertThat(decisions.get(2).arguments()).containsEntry("city", "Paris");
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.mcp.server.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolMethod;
+import com.example.mcp.server.tools.ToolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatternIntentClassifierTest {
+    private PatternIntentClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        ToolRegistry toolRegistry = mock(ToolRegistry.class);
+        when(toolRegistry.getTool(anyString()))
+                .thenReturn(new ToolMethod("getWeather", "", null, null, null, false, List.of(), null));
+        classifier = new PatternIntentClassifier(toolRegistry, new SimpleMeterRegistry(), true, 0.8);
+    }
+
+    /** An empty city means the prompt must be left to the LLM. */
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', textBlock = """
+            weather in Paris                       | Paris
+            What's the weather in New York?        | New York
+            how is the weather in london today     | london
+            temperature for Saint-Étienne          | Saint-Étienne
+            Is it raining in Berlin?               | Berlin
+            Paris weather                          | Paris
+            What's the London temperature?         | London
+            weather in The Hague                   | The Hague
+            What's the weather?                    |
+            how is the weather                     |
+            tell me the weather                    |
+            I hate this weather                    |
+            Do you like cold weather               |
+            what is the weather in my city         |
+            paris weather                          |
+            weather in Paris tomorrow              |
+            weather in London and book lunch       |
+            """)
+    void routesOnlyPlaceNames(String prompt, String city) {
+        Optional<ToolDecision> decision = classifier.tryRoute(prompt);
+
+        if (city == null) {
+            assertThat(decision).isEmpty();
+        } else {
+            assertThat(decision).isPresent();
+            assertThat(decision.get().toolName()).isEqualTo("getWeather");
+            assertThat(decision.get().arguments()).containsEntry("city", city);
+        }
+    }
+}
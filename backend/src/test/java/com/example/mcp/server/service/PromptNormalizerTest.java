@@ -0,0 +1,36 @@
+package com.example.mcp.server.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptNormalizerTest {
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', textBlock = """
+            Weather in London?         | weather in london
+            '  weather   in  london '  | weather in london
+            What's up?                 | what s up
+            what is 2+2                | what is 2+2
+            what is 2*2                | what is 2*2
+            what is c#                 | what is c#
+            Costs $5!                  | costs $5
+            50°C in Paris, please.     | 50°c in paris please
+            """)
+    void foldsCaseWhitespaceAndPunctuation(String prompt, String normalized) {
+        assertThat(PromptNormalizer.normalize(prompt)).isEqualTo(normalized);
+    }
+
+    @ParameterizedTest(name = "{0} / {1}")
+    @CsvSource(delimiter = '|', textBlock = """
+            what is 2+2 | what is 2-2
+            what is c++ | what is c
+            what is c#  | what is c
+            10%         | 10
+            """)
+    void keepsSymbolsApart(String first, String second) {
+        assertThat(PromptNormalizer.normalize(first)).isNotEqualTo(PromptNormalizer.normalize(second));
+        assertThat(PromptNormalizer.foldCaseAndSpace(first)).isNotEqualTo(PromptNormalizer.foldCaseAndSpace(second));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.mcp.server.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.example.mcp.server.model.ToolDecision;
+import com.example.mcp.server.model.ToolMethod;
+import com.example.mcp.server.tools.ToolPolicy;
+import com.example.mcp.server.tools.ToolRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoutingCacheTest {
+    private RoutingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ToolPolicy policy = mock(ToolPolicy.class);
+        when(policy.cacheRouting()).thenReturn(true);
+        ToolRegistry toolRegistry = mock(ToolRegistry.class);
+        when(toolRegistry.getTool(anyString()))
+                .thenReturn(new ToolMethod("askChat", "", null, null, policy, false, List.of(), null));
+        cache = new RoutingCache(toolRegistry, new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void rebindsArgumentsThatEchoThePrompt() {
+        cache.put("What is the capital of France?", new ToolDecision("askChat", Map.of("prompt", "What is the capital of France?")));
+
+        ToolDecision hit = cache.get("what is the capital of france");
+
+        assertThat(hit).isNotNull();
+        assertThat(hit.arguments()).containsEntry("prompt", "what is the capital of france");
+    }
+
+    @Test
+    void keepsArgumentsTheRouterExtracted() {
+        cache.put("Weather in London?", new ToolDecision("getWeather", Map.of("city", "London")));
+
+        assertThat(cache.get("weather in london").arguments()).containsEntry("city", "London");
+    }
+
+    @Test
+    void promptsDifferingInSymbolsDoNotShareADecision() {
+        cache.put("what is 2+2", new ToolDecision("askChat", Map.of("prompt", "what is 2+2")));
+
+        assertThat(cache.get("what is 2*2")).isNull();
+    }
+}
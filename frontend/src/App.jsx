@@ -63,6 +63,39 @@ function Message({ from, text, meta }) {
   );
 }
 
+/**
+ * Reads a text/event-stream body and calls onData with the data of every event as it arrives.
+ * Multi-line data fields are joined with '\n', as the SSE spec requires.
+ */
+async function readEvents(body, onData) {
+  const reader = body.getReader();
+  const decoder = new TextDecoder();
+  let buffer = '';
+
+  const dispatch = (block) => {
+    const data = block
+      .split(/\r?\n/)
+      .filter((line) => line.startsWith('data:'))
+      // Spring writes "data:" without a separating space, so a leading space belongs to the text
+      .map((line) => line.slice(5));
+    if (data.length > 0) onData(data.join('\n'));
+  };
+
+  for (;;) {
+    const { done, value } = await reader.read();
+    if (done) break;
+    buffer += decoder.decode(value, { stream: true });
+
+    let boundary;
+    while ((boundary = buffer.search(/\r?\n\r?\n/)) >= 0) {
+      dispatch(buffer.slice(0, boundary));
+      buffer = buffer.slice(boundary).replace(/^\r?\n\r?\n/, '');
+    }
+  }
+  buffer += decoder.decode();
+  if (buffer.trim()) dispatch(buffer);
+}
+
 export default function App() {
   const [mcpUrl, setMcpUrl] = useState(DEFAULT_MCP_URL);
   const [messages, setMessages] = useState([]);
@@ -96,44 +129,29 @@ export default function App() {
     try {
       const res = await fetch(mcpUrl, {
         method: 'POST',
-        headers: { 'Content-Type': 'application/json' },
+        headers: { 'Content-Type': 'application/json', Accept: 'text/event-stream' },
         body: JSON.stringify({ prompt }),
       });
 
-      const textContent = await res.text();
-
-      let contentToShow = textContent;
-      try {
-        const parsed = JSON.parse(textContent);
-        if (Array.isArray(parsed)) {
-          contentToShow = parsed.join(' ');
-        } else if (typeof parsed === 'string') {
-          contentToShow = parsed;
-        }
-      } catch {
-        // not JSON, keep as-is
+      if (!res.ok) {
+        // shed requests (429/503) answer with a plain-text reason
+        throw new Error((await res.text()) || `HTTP ${res.status}`);
       }
 
-      let i = 0;
-      const interval = setInterval(() => {
-        if (i > contentToShow.length) {
-          clearInterval(interval);
-          setMessages((prev) =>
-            prev.map((msg, idx) =>
-              idx === placeholderIndex ? { ...msg, typing: false } : msg
-            )
-          );
-          return;
-        }
+      const appendText = (chunk) =>
         setMessages((prev) =>
           prev.map((msg, idx) =>
-            idx === placeholderIndex
-              ? { ...msg, text: contentToShow.slice(0, i), typing: true }
-              : msg
+            idx === placeholderIndex ? { ...msg, text: msg.text + chunk, typing: true } : msg
           )
         );
-        i += 2;
-      }, 30);
+
+      await readEvents(res.body, appendText);
+
+      setMessages((prev) =>
+        prev.map((msg, idx) =>
+          idx === placeholderIndex ? { ...msg, typing: false } : msg
+        )
+      );
 
     } catch (err) {
       setMessages((prev) =>